@@ -0,0 +1,53 @@
+package dev.renzo.crud.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductoSerializationBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<Producto> productos;
+
+    @Setup
+    public void setup() {
+        // misma configuracion base que el ObjectMapper de Spring MVC
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        productos = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Producto producto = new Producto("Producto " + i, i * 1.5f);
+            producto.setId(i);
+            productos.add(producto);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productos);
+    }
+}
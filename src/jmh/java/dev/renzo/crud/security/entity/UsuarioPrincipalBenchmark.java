@@ -0,0 +1,48 @@
+package dev.renzo.crud.security.entity;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.renzo.crud.security.enums.RolNombre;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsuarioPrincipalBenchmark {
+
+    private Usuario usuario;
+    private List<String> roles;
+
+    @Setup
+    public void setup() {
+        usuario = new Usuario("Benchmark", "benchmark", "benchmark@example.com", "$2a$10$hash");
+        usuario.setRoles(new HashSet<>(Arrays.asList(new Rol(RolNombre.ROLE_USER), new Rol(RolNombre.ROLE_ADMIN))));
+        roles = Arrays.asList(RolNombre.ROLE_USER.name(), RolNombre.ROLE_ADMIN.name());
+    }
+
+    @Benchmark
+    public UsuarioPrincipal buildFromUsuario() {
+        return UsuarioPrincipal.build(usuario);
+    }
+
+    @Benchmark
+    public UsuarioPrincipal buildFromClaims() {
+        return UsuarioPrincipal.build("benchmark", roles);
+    }
+}
@@ -0,0 +1,109 @@
+package dev.renzo.crud.security.jwt;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dev.renzo.crud.security.dto.JwtDto;
+import dev.renzo.crud.security.entity.UsuarioPrincipal;
+import dev.renzo.crud.security.repository.TokenRevocadoRepository;
+import dev.renzo.crud.security.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtProviderBenchmark {
+
+    private static final int DISTINCT_TOKENS = 4096;
+
+    private JwtProvider provider;
+    private JwtProvider uncachedProvider;
+    private Authentication authentication;
+    private String token;
+    private JwtDto jwtDto;
+    private String[] distinctTokens;
+    private int next;
+
+    @Setup
+    public void setup() {
+        provider = newProvider(10000);
+        // con una cache de 1 entrada y miles de tokens distintos casi todas las verificaciones son completas
+        uncachedProvider = newProvider(1);
+
+        UsuarioPrincipal principal = UsuarioPrincipal.build("benchmark", Arrays.asList("ROLE_USER", "ROLE_ADMIN"));
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        token = provider.generateToken(authentication);
+        jwtDto = new JwtDto(token);
+
+        distinctTokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            UsuarioPrincipal user = UsuarioPrincipal.build("user" + i, Arrays.asList("ROLE_USER"));
+            distinctTokens[i] = uncachedProvider.generateToken(
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return provider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public void validateAndGetUsername(Blackhole blackhole) {
+        blackhole.consume(provider.validateToken(token));
+        blackhole.consume(provider.getUsernameFromToken(token));
+    }
+
+    @Benchmark
+    public void validateAndGetUsernameUncached(Blackhole blackhole) {
+        String distinct = distinctTokens[next++ & (DISTINCT_TOKENS - 1)];
+        blackhole.consume(uncachedProvider.validateToken(distinct));
+        blackhole.consume(uncachedProvider.getUsernameFromToken(distinct));
+    }
+
+    @Benchmark
+    public String refreshToken() {
+        return provider.refreshToken(jwtDto);
+    }
+
+    private static JwtProvider newProvider(long cacheMaxSize) {
+        JwtProvider jwtProvider = new JwtProvider();
+        ReflectionTestUtils.setField(jwtProvider, "secret", "secret");
+        ReflectionTestUtils.setField(jwtProvider, "expiration", 20000000);
+        ReflectionTestUtils.setField(jwtProvider, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtProvider, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtProvider, "tokenRevocationService", newRevocationService());
+        jwtProvider.init();
+        return jwtProvider;
+    }
+
+    // sin tokens revocados: cada verificacion paga solo la consulta al filtro de Bloom
+    private static TokenRevocationService newRevocationService() {
+        TokenRevocationService service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "tokenRevocadoRepository", Mockito.mock(TokenRevocadoRepository.class));
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "expectedTokens", 100000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        service.init();
+        return service;
+    }
+}
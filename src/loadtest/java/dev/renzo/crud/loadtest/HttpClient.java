@@ -0,0 +1,78 @@
+package dev.renzo.crud.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+// cliente HTTP minimo sobre HttpURLConnection (reutiliza conexiones keep-alive si se lee toda la respuesta)
+final class HttpClient {
+
+    static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private final String baseUrl;
+
+    HttpClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    Response get(String path, String token) throws IOException {
+        return send("GET", path, token, null, null);
+    }
+
+    Response postJson(String path, String token, String json) throws IOException {
+        return send("POST", path, token, "application/json", json);
+    }
+
+    Response putJson(String path, String token, String json) throws IOException {
+        return send("PUT", path, token, "application/json", json);
+    }
+
+    Response delete(String path, String token) throws IOException {
+        return send("DELETE", path, token, null, null);
+    }
+
+    private Response send(String method, String path, String token, String contentType, String body)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(60000);
+        if (token != null)
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        return new Response(status, in == null ? "" : readFully(in));
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
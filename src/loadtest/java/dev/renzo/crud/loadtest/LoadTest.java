@@ -0,0 +1,297 @@
+package dev.renzo.crud.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.renzo.crud.CrudApplication;
+
+/**
+ * Levanta la aplicacion contra H2 en modo MySQL y ejecuta escenarios de carga,
+ * informando throughput y percentiles de latencia (HdrHistogram).
+ *
+ * Uso: ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="--scenario=all --clients=64 --duration=30"
+ *
+ * Argumentos: --scenario=login|read|mixed|refresh|all --clients=64 --duration=30 --warmup=5 --products=10000
+ * --threads=platform|virtual|compare (virtual y compare requieren Java 21+; compare levanta la aplicacion
+ * una vez por modo y repite los mismos escenarios, por ejemplo con --clients=2000)
+ */
+public final class LoadTest {
+
+    enum Scenario {
+        LOGIN, READ, MIXED, REFRESH
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String ADMIN_USER = "loadtest";
+    private static final String ADMIN_PASSWORD = "loadtest";
+
+    private final HttpClient http;
+    private final int clients;
+    private final int productCount;
+
+    private String adminToken;
+    private int[] productIds;
+    private String[] productNames;
+    private final ConcurrentLinkedQueue<Integer> createdIds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger createdSequence = new AtomicInteger();
+
+    private LoadTest(String baseUrl, int clients, int productCount) {
+        this.http = new HttpClient(baseUrl);
+        this.clients = clients;
+        this.productCount = productCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "64"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int products = Integer.parseInt(options.getOrDefault("products", "10000"));
+        List<Scenario> scenarios = parseScenarios(options.getOrDefault("scenario", "all"));
+        List<String> threadModes = parseThreadModes(options.getOrDefault("threads", "platform"));
+
+        // un carrier por conexion de Hikari (maximum-pool-size = 10); la JVM lee el paralelismo al crear el
+        // primer virtual thread y aca todavia no hay ninguno
+        if (threadModes.contains("virtual") && System.getProperty("jdk.virtualThreadScheduler.parallelism") == null)
+            System.setProperty("jdk.virtualThreadScheduler.parallelism", "10");
+
+        // HttpURLConnection solo mantiene 5 conexiones keep-alive por host si no se indica otra cosa
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+
+        List<String> report = new ArrayList<>();
+        for (String threadMode : threadModes) {
+            ConfigurableApplicationContext context = startApplication(threadMode);
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                LoadTest loadTest = new LoadTest("http://localhost:" + port, clients, products);
+                loadTest.setUp();
+
+                for (Scenario scenario : scenarios) {
+                    loadTest.run(scenario, warmup);
+                    report.add(loadTest.run(scenario, duration).format(threadMode, scenario, clients));
+                }
+            } finally {
+                context.close();
+            }
+        }
+
+        System.out.printf("%n%-8s %-8s %8s %10s %10s %10s %10s %10s  %s%n", "threads",
+                "scenario", "clients", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "status");
+        for (String line : report)
+            System.out.println(line);
+    }
+
+    static ConfigurableApplicationContext startApplication(String threadMode) {
+        // una base por modo: compare levanta la aplicacion dos veces en la misma JVM. Van como argumentos de
+        // linea de comandos: properties() solo define valores por defecto y application.properties los pisaria
+        return new SpringApplicationBuilder(CrudApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + threadMode.equals("virtual"),
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest-" + threadMode
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        // H2 reporta FLOAT como DOUBLE PRECISION: el esquema lo crea Flyway y no se valida
+                        "--spring.jpa.hibernate.ddl-auto=none",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+    }
+
+    private void setUp() throws IOException {
+        http.postJson("/auth", null, "{\"nombre\":\"Load Test\",\"nombreUsuario\":\"" + ADMIN_USER
+                + "\",\"email\":\"loadtest@example.com\",\"password\":\"" + ADMIN_PASSWORD + "\",\"roles\":[\"admin\"]}");
+        adminToken = login();
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < productCount; i++) {
+            if (i > 0)
+                json.append(',');
+            json.append("{\"nombre\":\"producto-").append(i).append("\",\"precio\":").append(1 + i % 1000).append('}');
+        }
+        json.append(']');
+
+        HttpClient.Response response = http.postJson("/products/bulk", adminToken, json.toString());
+        if (response.status != 200)
+            throw new IllegalStateException("Seeding products failed: " + response.status + " " + response.body);
+
+        List<Integer> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (JsonNode row : MAPPER.readTree(response.body)) {
+            if (row.hasNonNull("id")) {
+                ids.add(row.get("id").asInt());
+                names.add(row.get("nombre").asText());
+            }
+        }
+        productIds = ids.stream().mapToInt(Integer::intValue).toArray();
+        productNames = names.toArray(new String[0]);
+    }
+
+    private Result run(Scenario scenario, int seconds) throws Exception {
+        Result result = new Result();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = execute(scenario);
+                        } catch (IOException e) {
+                            status = -1;
+                        }
+                        result.record(status, System.nanoTime() - start);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        result.elapsedNanos = TimeUnit.SECONDS.toNanos(seconds);
+        return result;
+    }
+
+    private int execute(Scenario scenario) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (scenario) {
+        case LOGIN:
+            return http.postJson("/auth/login", null, loginJson()).status;
+        case REFRESH:
+            return http.postJson("/auth/refresh", null, "{\"token\":\"" + adminToken + "\"}").status;
+        case READ:
+            return read(random);
+        case MIXED:
+            return random.nextInt(100) < 80 ? read(random) : write(random);
+        default:
+            throw new IllegalArgumentException(scenario.name());
+        }
+    }
+
+    private int read(ThreadLocalRandom random) throws IOException {
+        if (random.nextInt(100) < 10)
+            return http.get("/products", adminToken).status;
+        return http.get("/products/" + productIds[random.nextInt(productIds.length)], adminToken).status;
+    }
+
+    private int write(ThreadLocalRandom random) throws IOException {
+        int operation = random.nextInt(3);
+        if (operation == 0) {
+            String nombre = "nuevo-" + createdSequence.incrementAndGet();
+            HttpClient.Response response = http.postJson("/products", adminToken,
+                    "{\"nombre\":\"" + nombre + "\",\"precio\":" + random.nextInt(1, 1000) + "}");
+            if (response.status == 201) {
+                JsonNode created = MAPPER.readTree(http.get("/products/detail-name/" + nombre, adminToken).body);
+                if (created.hasNonNull("id"))
+                    createdIds.add(created.get("id").asInt());
+            }
+            return response.status;
+        }
+        if (operation == 1) {
+            int index = random.nextInt(productIds.length);
+            return http.putJson("/products/" + productIds[index], adminToken,
+                    "{\"nombre\":\"" + productNames[index] + "\",\"precio\":" + random.nextInt(1, 1000) + "}").status;
+        }
+
+        Integer id = createdIds.poll();
+        if (id == null)
+            return http.get("/products/" + productIds[random.nextInt(productIds.length)], adminToken).status;
+        return http.delete("/products/" + id, adminToken).status;
+    }
+
+    private String login() throws IOException {
+        HttpClient.Response response = http.postJson("/auth/login", null, loginJson());
+        if (response.status != 202)
+            throw new IllegalStateException("Login failed: " + response.status + " " + response.body);
+        return MAPPER.readTree(response.body).get("token").asText();
+    }
+
+    private static String loginJson() {
+        return "{\"nombreUsuario\":\"" + ADMIN_USER + "\",\"password\":\"" + ADMIN_PASSWORD + "\"}";
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static List<String> parseThreadModes(String value) {
+        String mode = value.toLowerCase();
+        if (mode.equals("compare"))
+            return Arrays.asList("platform", "virtual");
+        if (mode.equals("platform") || mode.equals("virtual"))
+            return Collections.singletonList(mode);
+        throw new IllegalArgumentException("Unknown thread mode: " + value);
+    }
+
+    private static List<Scenario> parseScenarios(String value) {
+        if (value.equalsIgnoreCase("all"))
+            return Arrays.asList(Scenario.values());
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String name : value.split(","))
+            scenarios.add(Scenario.valueOf(name.trim().toUpperCase()));
+        return scenarios;
+    }
+
+    private static final class Result {
+        private final Recorder recorder = new Recorder(3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private long elapsedNanos;
+
+        void record(int status, long nanos) {
+            recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+
+        String format(String threadMode, Scenario scenario, int clients) {
+            Histogram histogram = recorder.getIntervalHistogram();
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+
+            return String.format("%-8s %-8s %8d %10.1f %10.2f %10.2f %10.2f %10.2f  %s", threadMode,
+                    scenario.name().toLowerCase(), clients,
+                    histogram.getTotalCount() / (elapsedNanos / 1e9),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    counts);
+        }
+    }
+}
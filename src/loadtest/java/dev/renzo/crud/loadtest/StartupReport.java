@@ -0,0 +1,143 @@
+package dev.renzo.crud.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+
+import dev.renzo.crud.CrudApplication;
+
+/**
+ * Compara el arranque con el esquema manejado por hibernate (ddl-auto=update, sin Flyway) contra Flyway +
+ * ddl-auto=validate, leyendo los pasos de BufferingApplicationStartup (los mismos de /actuator/startup).
+ * Cada modo arranca una vez para crear el esquema y despues se promedian las corridas medidas.
+ *
+ * Uso: ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.main=dev.renzo.crud.loadtest.StartupReport
+ *          -Dloadtest.args="--runs=5 [--url=jdbc:mysql://... --username=root --password=root]"
+ *
+ * Sin --url usa H2 en modo MySQL; H2 reporta FLOAT como DOUBLE PRECISION, asi que ahi el modo flyway no
+ * valida (ddl-auto=none) y la comparacion con validate solo es completa contra MySQL.
+ *
+ * Medido con --runs=5 contra MariaDB 10.11.5 local (en lugar de MySQL), JDK 17, promedios en ms:
+ *
+ *   mode                          total   flywayInitializer   entityManagerFactory
+ *   flyway (ddl-auto=validate)     4046                  69                    509
+ *   update (ddl-auto=update)       3700                   0                    348
+ */
+public final class StartupReport {
+
+    private static final List<String> BEANS = Arrays.asList("flywayInitializer", "entityManagerFactory");
+
+    private StartupReport() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseArgs(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        String url = options.get("url");
+
+        Map<String, Map<String, Long>> report = new LinkedHashMap<>();
+        // flyway primero: contra MySQL ambos modos comparten la base y el esquema lo crean las migraciones
+        for (String mode : Arrays.asList("flyway", "update")) {
+            List<String> properties = properties(mode, url, options);
+            start(properties).close();
+
+            Map<String, Long> totals = new LinkedHashMap<>();
+            for (int run = 0; run < runs; run++) {
+                for (Map.Entry<String, Long> step : measure(properties).entrySet())
+                    totals.merge(step.getKey(), step.getValue(), Long::sum);
+            }
+            Map<String, Long> averages = new LinkedHashMap<>();
+            totals.forEach((step, millis) -> averages.put(step, millis / runs));
+            report.put(mode, averages);
+        }
+
+        System.out.printf("%n%-28s %12s %22s %22s%n", "mode", "total ms", "flywayInitializer ms",
+                "entityManagerFactory ms");
+        report.forEach((mode, steps) -> System.out.printf("%-28s %12d %22d %22d%n", mode + " (ddl-auto="
+                + ddlAuto(mode, url) + ")", steps.getOrDefault("total", 0L),
+                steps.getOrDefault("flywayInitializer", 0L), steps.getOrDefault("entityManagerFactory", 0L)));
+        if (url == null) {
+            System.out.println("H2: the flyway mode skips schema validation, so these numbers are not comparable"
+                    + " with MySQL. Run with --url=jdbc:mysql://... to measure flyway + validate.");
+        }
+    }
+
+    private static Map<String, Long> measure(List<String> properties) {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(4096);
+        long start = System.nanoTime();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CrudApplication.class)
+                .applicationStartup(startup)
+                .run(arguments(properties));
+        long total = System.nanoTime() - start;
+        context.close();
+
+        Map<String, Long> steps = new LinkedHashMap<>();
+        steps.put("total", Duration.ofNanos(total).toMillis());
+        for (StartupTimeline.TimelineEvent event : startup.getBufferedTimeline().getEvents()) {
+            if (!event.getStartupStep().getName().equals("spring.beans.instantiate"))
+                continue;
+            for (StartupStep.Tag tag : event.getStartupStep().getTags()) {
+                if (tag.getKey().equals("beanName") && BEANS.contains(tag.getValue()))
+                    steps.merge(tag.getValue(), event.getDuration().toMillis(), Long::sum);
+            }
+        }
+        return steps;
+    }
+
+    private static ConfigurableApplicationContext start(List<String> properties) {
+        return new SpringApplicationBuilder(CrudApplication.class).run(arguments(properties));
+    }
+
+    // como argumentos de linea de comandos: properties() solo define valores por defecto y application.properties
+    // los pisaria (datasource MySQL, ddl-auto)
+    private static String[] arguments(List<String> properties) {
+        return properties.stream().map(property -> "--" + property).toArray(String[]::new);
+    }
+
+    private static List<String> properties(String mode, String url, Map<String, String> options) {
+        List<String> properties = new ArrayList<>(Arrays.asList("server.port=0", "logging.level.root=WARN"));
+        if (url == null) {
+            // una base por modo: el esquema de hibernate y el de las migraciones no se mezclan
+            properties.add("spring.datasource.url=jdbc:h2:mem:startup-" + mode
+                    + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+            properties.add("spring.datasource.username=sa");
+            properties.add("spring.datasource.password=");
+            properties.add("spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        } else {
+            properties.add("spring.datasource.url=" + url);
+            properties.add("spring.datasource.username=" + options.getOrDefault("username", "root"));
+            properties.add("spring.datasource.password=" + options.getOrDefault("password", "root"));
+        }
+
+        if (mode.equals("update"))
+            properties.add("spring.flyway.enabled=false");
+        properties.add("spring.jpa.hibernate.ddl-auto=" + ddlAuto(mode, url));
+        return properties;
+    }
+
+    private static String ddlAuto(String mode, String url) {
+        if (mode.equals("update"))
+            return "update";
+        return url == null ? "none" : "validate";
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
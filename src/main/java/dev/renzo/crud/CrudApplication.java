@@ -2,12 +2,18 @@ package dev.renzo.crud;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CrudApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(CrudApplication.class, args);
+		SpringApplication application = new SpringApplication(CrudApplication.class);
+		// registra los pasos del arranque para /actuator/startup
+		application.setApplicationStartup(new BufferingApplicationStartup(2048));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,84 @@
+package dev.renzo.crud.config;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+// con spring.datasource.replica.url definido, las transacciones readOnly (consultas de ProductService)
+// van a la replica; sin esa propiedad se mantiene el DataSource autoconfigurado
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${spring.datasource.replica.url}") String url,
+            @Value("${spring.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${spring.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setPoolName("replica");
+        // la replica no debe demorar los requests si esta caida: se espera poco y se usa el primario
+        dataSource.setConnectionTimeout(1000);
+        // el pool arranca aunque la replica no responda
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${spring.datasource.replica.retry-interval-ms:10000}") long retryIntervalMs) {
+        return new ReplicaRoutingDataSource(primary, replica, retryIntervalMs);
+    }
+
+    // por separado: el MeterRegistry registra metricas de todos los DataSource, asi que un DataSource no puede
+    // depender de el sin formar un ciclo
+    @Bean
+    public MeterBinder replicaAvailability(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return registry -> Gauge.builder("datasource.replica.available", replicaRoutingDataSource,
+                routing -> routing.isReplicaAvailable() ? 1 : 0).register(registry);
+    }
+
+    // con open-in-view el EntityManager del request conservaria la conexion de su primera transaccion: si
+    // fue readOnly (replica), el save posterior del mismo request escribiria en la replica. Se libera la
+    // conexion al terminar cada transaccion para que la siguiente vuelva a elegir base
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    // el DataSource que usan JPA, Flyway y los repositorios
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,87 @@
+package dev.renzo.crud.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// envia las transacciones readOnly a la replica y el resto al primario. Si la replica no entrega una
+// conexion se usa el primario y la replica no se vuelve a intentar hasta que pase retryIntervalMillis.
+// Debe envolverse en un LazyConnectionDataSourceProxy: la conexion se pide cuando la transaccion ya
+// esta marcada como readOnly.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long retryIntervalMillis;
+    private volatile long replicaDownUntil;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long retryIntervalMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.retryIntervalMillis = retryIntervalMillis;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && System.currentTimeMillis() >= replicaDownUntil)
+            return Route.REPLICA;
+        return Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA)
+            return primary.getConnection();
+
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            replicaDown(e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA)
+            return primary.getConnection(username, password);
+
+        try {
+            return replica.getConnection(username, password);
+        } catch (SQLException e) {
+            replicaDown(e);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    public boolean isReplicaAvailable() {
+        return System.currentTimeMillis() >= replicaDownUntil;
+    }
+
+    private void replicaDown(SQLException e) {
+        replicaDownUntil = System.currentTimeMillis() + retryIntervalMillis;
+        logger.warn("Read replica unavailable, routing reads to the primary for {} ms: {}", retryIntervalMillis,
+                e.getMessage());
+    }
+}
@@ -0,0 +1,68 @@
+package dev.renzo.crud.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// sentencias SQL y tiempo JDBC del hilo actual entre start() y stop(). Lo alimentan SqlStatementListener
+// y SqlStatementInspector (registrados en hibernate); SqlStatisticsFilter lo usa por request y los tests
+// pueden usarlo para verificar cuantas consultas hace un endpoint.
+public final class SqlStatementCounter {
+    private static final ThreadLocal<Statistics> CURRENT = new ThreadLocal<>();
+
+    public static final class Statistics {
+        private int statements;
+        private long jdbcNanos;
+        private final Map<String, Integer> preparedBySql = new HashMap<>();
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getJdbcNanos() {
+            return jdbcNanos;
+        }
+
+        // la sentencia que mas veces se preparo (un numero alto con el mismo SQL suele indicar un N+1)
+        public Map.Entry<String, Integer> getMostRepeated() {
+            Map.Entry<String, Integer> mostRepeated = null;
+            for (Map.Entry<String, Integer> entry : preparedBySql.entrySet()) {
+                if (mostRepeated == null || entry.getValue() > mostRepeated.getValue())
+                    mostRepeated = entry;
+            }
+            return mostRepeated;
+        }
+    }
+
+    private SqlStatementCounter() {
+    }
+
+    public static Statistics start() {
+        Statistics statistics = new Statistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static Statistics stop() {
+        Statistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics != null ? statistics : new Statistics();
+    }
+
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void executed(long nanos) {
+        Statistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.jdbcNanos += nanos;
+        }
+    }
+
+    static void prepared(String sql) {
+        Statistics statistics = CURRENT.get();
+        if (statistics != null)
+            statistics.preparedBySql.merge(sql, 1, Integer::sum);
+    }
+}
@@ -0,0 +1,14 @@
+package dev.renzo.crud.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// registra el texto de cada sentencia preparada (hibernate.session_factory.statement_inspector)
+// para detectar la misma consulta repetida dentro de un request
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementCounter.prepared(sql);
+        return sql;
+    }
+}
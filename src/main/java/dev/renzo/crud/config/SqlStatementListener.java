@@ -0,0 +1,34 @@
+package dev.renzo.crud.config;
+
+import org.hibernate.BaseSessionEventListener;
+
+// hibernate crea una instancia por sesion (hibernate.session.events.auto); cada ejecucion de una sentencia
+// o de un batch JDBC cuenta como una sentencia
+public class SqlStatementListener extends BaseSessionEventListener {
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        if (SqlStatementCounter.isActive())
+            executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        if (SqlStatementCounter.isActive())
+            SqlStatementCounter.executed(System.nanoTime() - executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        if (SqlStatementCounter.isActive())
+            batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        if (SqlStatementCounter.isActive())
+            SqlStatementCounter.executed(System.nanoTime() - batchStart);
+    }
+}
@@ -0,0 +1,102 @@
+package dev.renzo.crud.config;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// cuenta las sentencias SQL y el tiempo JDBC de cada request (perfil sql-debug). Corre antes de Spring
+// Security para incluir la carga del usuario en JwtTokenFilter.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "sql.statistics.enabled", havingValue = "true")
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    static final String TIME_HEADER = "X-SQL-Time-Ms";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sql.statistics.headers:false}")
+    private boolean headers;
+
+    @Value("${sql.statistics.n-plus-one-threshold:5}")
+    private int nPlusOneThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.Statistics statistics = SqlStatementCounter.start();
+        // los headers se escriben justo antes de que la respuesta se envie, con lo contado hasta ese momento
+        HttpServletResponse target = !headers ? response : new OnCommittedResponseWrapper(response) {
+            @Override
+            protected void onResponseCommitted() {
+                writeHeaders(response, statistics);
+            }
+        };
+
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            SqlStatementCounter.stop();
+            if (headers && !response.isCommitted())
+                writeHeaders(response, statistics);
+            record(request, statistics);
+        }
+    }
+
+    private void writeHeaders(HttpServletResponse response, SqlStatementCounter.Statistics statistics) {
+        response.setHeader(STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+        response.setHeader(TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcNanos())));
+    }
+
+    private void record(HttpServletRequest request, SqlStatementCounter.Statistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        Timer.builder("http.server.requests.sql.time")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        Map.Entry<String, Integer> mostRepeated = statistics.getMostRepeated();
+        if (mostRepeated != null && mostRepeated.getValue() >= nPlusOneThreshold) {
+            Counter.builder("http.server.requests.sql.n-plus-one")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            logger.warn("Possible N+1 in {} {}: {} executions of {}", request.getMethod(), uri,
+                    mostRepeated.getValue(), mostRepeated.getKey());
+        }
+    }
+}
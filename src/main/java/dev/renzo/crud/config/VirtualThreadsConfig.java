@@ -0,0 +1,73 @@
+package dev.renzo.crud.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// atiende cada request de Tomcat en un virtual thread (Java 21+): el limite de concurrencia pasa a ser
+// el pool de Hikari (y el pool de BCrypt), no server.tomcat.threads.max
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+    private static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    @Bean
+    public VirtualThreadExecutorCustomizer virtualThreadExecutorCustomizer() {
+        // el driver de MySQL usa bloques synchronized, que fijan el virtual thread a su carrier durante la
+        // consulta; con menos carriers que conexiones el pool de Hikari nunca se llenaria. La JVM lee la
+        // propiedad una sola vez, al crear el primer virtual thread, asi que se pasa como -D al arrancar
+        int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        if (parallelism < maximumPoolSize) {
+            logger.warn("Only {} virtual thread carriers for {} database connections; start the JVM with -D{}={}",
+                    parallelism, maximumPoolSize, PARALLELISM_PROPERTY, maximumPoolSize);
+        }
+        logger.info("Serving requests on virtual threads ({}={})", PARALLELISM_PROPERTY, parallelism);
+        return new VirtualThreadExecutorCustomizer(newVirtualThreadPerTaskExecutor());
+    }
+
+    // se invoca por reflexion para que el proyecto siga compilando con java.version 1.8
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("spring.threads.virtual.enabled requires Java 21 or newer", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    public static class VirtualThreadExecutorCustomizer
+            implements TomcatProtocolHandlerCustomizer<ProtocolHandler>, DisposableBean {
+        private final ExecutorService executor;
+
+        VirtualThreadExecutorCustomizer(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void customize(ProtocolHandler protocolHandler) {
+            protocolHandler.setExecutor(executor);
+        }
+
+        // Tomcat no detiene un executor externo
+        @Override
+        public void destroy() {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package dev.renzo.crud.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -15,12 +27,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import dev.renzo.crud.dto.CambiosProductoDTO;
 import dev.renzo.crud.dto.MensajeDTO;
 import dev.renzo.crud.dto.ProductoDTO;
+import dev.renzo.crud.dto.ProductoPaginaDTO;
+import dev.renzo.crud.dto.ResultadoImportacionDTO;
 import dev.renzo.crud.entity.Producto;
+import dev.renzo.crud.repository.Constraints;
+import dev.renzo.crud.service.ProductCatalog;
+import dev.renzo.crud.service.ProductChangeFeed;
+import dev.renzo.crud.service.ProductImportService;
+import dev.renzo.crud.service.ProductListSnapshot;
+import dev.renzo.crud.service.ProductSearchIndex;
 import dev.renzo.crud.service.ProductService;
 
 @RestController
@@ -29,14 +55,161 @@ import dev.renzo.crud.service.ProductService;
 public class ProductController {
     @Autowired
     private ProductService productService;
+    @Autowired
+    private ProductImportService productImportService;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private ProductCatalog productCatalog;
+    @Autowired
+    private ProductListSnapshot productListSnapshot;
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+    @Autowired
+    private ObjectMapper objectMapper;
     private static final String PRODUCT_NOT_FOUND_MESSAGE = "Error: Product doesn't exist";
+    private static final String PRODUCT_MODIFIED_MESSAGE = "Error: Product was modified by another request";
+
+    @Value("${producto.list.limit:1000}")
+    private int listLimit;
+    @Value("${producto.page.default-size:50}")
+    private int defaultPageSize;
+    @Value("${producto.page.max-size:500}")
+    private int maxPageSize;
+    @Value("${producto.changes.default-limit:500}")
+    private int defaultChangesLimit;
+    @Value("${producto.changes.max-limit:1000}")
+    private int maxChangesLimit;
+    @Value("${producto.search.default-limit:20}")
+    private int defaultSearchLimit;
+    @Value("${producto.search.max-limit:100}")
+    private int maxSearchLimit;
 
     @GetMapping("")
-    public ResponseEntity<List<Producto>> findAll() {
-        List<Producto> products = productService.list();
+    public ResponseEntity<?> findAll(@RequestParam(value = "minPrice", required = false) Float minPrice,
+            @RequestParam(value = "maxPrice", required = false) Float maxPrice,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (minPrice == null && maxPrice == null && sort == null && limit == null) {
+            ProductListSnapshot.Snapshot snapshot = productListSnapshot.get();
+            if (snapshot != null)
+                return createSnapshotResponse(snapshot, acceptEncoding);
+        }
+
+        if (sort != null && !sort.equals("precio"))
+            return createRequestResponse("Error: Products can only be sorted by precio", HttpStatus.BAD_REQUEST);
+
+        int listSize = limit == null ? listLimit : Math.min(Math.max(limit, 1), listLimit);
+        if (minPrice == null && maxPrice == null && sort == null) {
+            List<Producto> products = productService.list(listSize);
+            return new ResponseEntity<List<Producto>>(products, HttpStatus.OK);
+        }
+
+        // filtrar o ordenar por precio se resuelve en el catalogo en memoria, ordenado por precio
+        float from = minPrice == null ? Float.NEGATIVE_INFINITY : minPrice;
+        float to = maxPrice == null ? Float.POSITIVE_INFINITY : maxPrice;
+        if (from > to)
+            return createRequestResponse("Error: minPrice must not be greater than maxPrice", HttpStatus.BAD_REQUEST);
+
+        List<Producto> products = productCatalog.findByPrecioBetween(from, to, listSize);
         return new ResponseEntity<List<Producto>>(products, HttpStatus.OK);
     }
 
+    @GetMapping("/cheapest")
+    public ResponseEntity<List<Producto>> findCheapest(@RequestParam(value = "n", defaultValue = "10") int n) {
+        List<Producto> products = productCatalog.findCheapest(Math.min(Math.max(n, 1), listLimit));
+        return new ResponseEntity<List<Producto>>(products, HttpStatus.OK);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<ProductoPaginaDTO> findPage(@RequestParam(value = "cursor", defaultValue = "0") int cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+
+        // se pide un elemento de mas para saber si existe una pagina siguiente
+        List<Producto> products = productService.listAfter(cursor, pageSize + 1);
+        Integer nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            nextCursor = products.get(pageSize - 1).getId();
+        }
+
+        return new ResponseEntity<>(new ProductoPaginaDTO(products, nextCursor), HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+            @RequestParam(value = "mode", defaultValue = "prefix") String mode,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        if (StringUtils.isBlank(query))
+            return createRequestResponse("Error: Search query is mandatory", HttpStatus.BAD_REQUEST);
+
+        int searchLimit = limit == null ? defaultSearchLimit : Math.min(Math.max(limit, 1), maxSearchLimit);
+        List<Producto> products;
+        if (mode.equalsIgnoreCase("prefix"))
+            products = productSearchIndex.searchByPrefix(query, searchLimit);
+        else if (mode.equalsIgnoreCase("infix"))
+            products = productSearchIndex.searchByInfix(query, searchLimit);
+        else
+            return createRequestResponse("Error: Search mode must be prefix or infix", HttpStatus.BAD_REQUEST);
+
+        return new ResponseEntity<>(products, HttpStatus.OK);
+    }
+
+    // sincronizacion incremental: since es el siguienteToken de la respuesta anterior ("0" la primera vez)
+    @GetMapping("/changes")
+    public ResponseEntity<?> changes(@RequestParam(value = "since", defaultValue = "0") String since,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        long token;
+        try {
+            token = Long.parseLong(since);
+        } catch (NumberFormatException e) {
+            return createRequestResponse("Error: Invalid sync token", HttpStatus.BAD_REQUEST);
+        }
+        if (token < 0)
+            return createRequestResponse("Error: Invalid sync token", HttpStatus.BAD_REQUEST);
+
+        if (token > 0 && productService.isChangeTokenExpired(token))
+            return createRequestResponse("Error: Sync token expired, download the full catalog", HttpStatus.GONE);
+
+        int changesLimit = limit == null ? defaultChangesLimit : Math.min(Math.max(limit, 1), maxChangesLimit);
+        CambiosProductoDTO changes = productService.changesSince(token, changesLimit);
+        return new ResponseEntity<>(changes, HttpStatus.OK);
+    }
+
+    // eventos created/updated/deleted con el producto en JSON, despues de cada commit
+    @GetMapping("/stream")
+    public ResponseEntity<?> stream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!productChangeFeed.subscribe(request, response))
+            return createRequestResponse("Error: Too many subscribers, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+
+        // la respuesta queda abierta y la escribe el feed
+        return null;
+    }
+
+    @GetMapping("/export")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(Producto.class);
+
+        try {
+            productService.forEach(product -> {
+                try {
+                    out.write(writer.writeValueAsBytes(product));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getOne(@PathVariable("id") int id) {
         if (!productService.existsById(id))
@@ -72,20 +245,44 @@ public class ProductController {
         if (productDto.getPrecio() == null || productDto.getPrecio() < 0)
             return createRequestResponse("Error: Product price is mandatory", HttpStatus.BAD_REQUEST);
 
-        if (productService.existsByNombre(productDto.getNombre()))
-            return createRequestResponse("Error: Product name already exists", HttpStatus.CONFLICT);
-
+        // la unicidad del nombre la garantiza el indice uk_producto_nombre
         Producto product = new Producto(productDto.getNombre(), productDto.getPrecio());
-        productService.save(product);
+        try {
+            productService.save(product);
+        } catch (DataIntegrityViolationException e) {
+            return createIntegrityViolationResponse(e);
+        }
         return new ResponseEntity<>(new MensajeDTO("Product created successfully!"), HttpStatus.CREATED);
     }
 
-    @PutMapping("/{id}")
-    public ResponseEntity<MensajeDTO> update(@PathVariable("id") int id, @RequestBody ProductoDTO productDto) {
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> bulkCreateJson(HttpServletRequest request) {
+        try {
+            List<ResultadoImportacionDTO> results = productImportService.importJson(request.getInputStream());
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (IOException e) {
+            return createRequestResponse("Error: Invalid import data", HttpStatus.BAD_REQUEST);
+        }
+    }
 
-        Optional<Producto> optionalProductByName = productService.getByNombre(productDto.getNombre());
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<?> bulkCreateCsv(HttpServletRequest request) {
+        try {
+            List<ResultadoImportacionDTO> results = productImportService.importCsv(request.getInputStream());
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (IOException e) {
+            return createRequestResponse("Error: Invalid import data", HttpStatus.BAD_REQUEST);
+        }
+    }
 
-        if (!productService.existsById(id))
+    @PutMapping("/{id}")
+    public ResponseEntity<MensajeDTO> update(@PathVariable("id") int id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody ProductoDTO productDto) {
+        Optional<Producto> optionalProduct = productService.getOne(id);
+        if (!optionalProduct.isPresent())
             return createRequestResponse(PRODUCT_NOT_FOUND_MESSAGE, HttpStatus.NOT_FOUND);
 
         if (StringUtils.isBlank(productDto.getNombre()))
@@ -94,39 +291,94 @@ public class ProductController {
         if (productDto.getPrecio() == null || productDto.getPrecio() < 0)
             return createRequestResponse("Error: Product price is mandatory", HttpStatus.BAD_REQUEST);
 
-        if (productService.existsByNombre(productDto.getNombre())
-                && optionalProductByName.isPresent()
-                && optionalProductByName.get().getId() != id)
-            return createRequestResponse("Product name already exists", HttpStatus.CONFLICT);
-
-        Optional<Producto> optionalProduct = productService.getOne(id);
-        if (!optionalProduct.isPresent())
-            return createRequestResponse(PRODUCT_NOT_FOUND_MESSAGE, HttpStatus.NOT_FOUND);
-
         Producto product = optionalProduct.get();
+        if (ifMatch != null && !matchesETag(ifMatch, product))
+            return createRequestResponse(PRODUCT_MODIFIED_MESSAGE, HttpStatus.PRECONDITION_FAILED);
+
         product.setNombre(productDto.getNombre());
         product.setPrecio(productDto.getPrecio());
-        productService.save(product);
-        return createRequestResponse("Product updated successfully!", HttpStatus.CREATED);
+
+        Producto saved;
+        try {
+            saved = productService.save(product);
+        } catch (OptimisticLockingFailureException e) {
+            return createRequestResponse(PRODUCT_MODIFIED_MESSAGE,
+                    ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        } catch (DataIntegrityViolationException e) {
+            return createIntegrityViolationResponse(e);
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(eTagOf(saved))
+                .body(new MensajeDTO("Product updated successfully!"));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{id}")
     public ResponseEntity<MensajeDTO> delete(@PathVariable("id") int id) {
-        if (!productService.existsById(id))
+        try {
+            productService.delete(id);
+        } catch (EmptyResultDataAccessException e) {
             return createRequestResponse(PRODUCT_NOT_FOUND_MESSAGE, HttpStatus.NOT_FOUND);
-
-        productService.delete(id);
+        }
         return createRequestResponse("Product deleted successfully!", HttpStatus.OK);
     }
 
+    // solo el indice uk_producto_nombre es un nombre repetido; otra restriccion (un nombre demasiado largo,
+    // un NOT NULL) es un dato invalido
+    private ResponseEntity<MensajeDTO> createIntegrityViolationResponse(DataIntegrityViolationException e) {
+        if (Constraints.violates(e, Constraints.PRODUCTO_NOMBRE))
+            return createRequestResponse("Error: Product name already exists", HttpStatus.CONFLICT);
+        return createRequestResponse("Error: Invalid product data", HttpStatus.BAD_REQUEST);
+    }
+
     private ResponseEntity<MensajeDTO> createRequestResponse(String message, HttpStatus httpStatus) {
         MensajeDTO errorMessage = new MensajeDTO(message);
         return new ResponseEntity<>(errorMessage, httpStatus);
     }
 
+    // el cuerpo ya esta serializado: se escribe tal cual, comprimido si el cliente acepta gzip.
+    // Cada codificacion tiene su ETag; con el, Spring responde 304 a un If-None-Match coincidente
+    private ResponseEntity<byte[]> createSnapshotResponse(ProductListSnapshot.Snapshot snapshot, String acceptEncoding) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return builder.eTag(snapshot.getGzipETag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(snapshot.getGzip());
+        }
+        return builder.eTag(snapshot.getETag()).body(snapshot.getJson());
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip"))
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    // con ETag, Spring responde 304 a un If-None-Match coincidente sin serializar el cuerpo
     private ResponseEntity<Producto> createProductResponse(Producto producto, HttpStatus httpStatus) {
-        return new ResponseEntity<>(producto, httpStatus);
+        return ResponseEntity.status(httpStatus).eTag(eTagOf(producto)).body(producto);
+    }
+
+    private String eTagOf(Producto producto) {
+        return "\"" + producto.getId() + "-" + producto.getVersion() + "\"";
+    }
+
+    private boolean matchesETag(String ifMatch, Producto producto) {
+        String eTag = eTagOf(producto);
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(eTag))
+                return true;
+        }
+        return false;
     }
 
 }
\ No newline at end of file
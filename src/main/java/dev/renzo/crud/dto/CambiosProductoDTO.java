@@ -0,0 +1,20 @@
+package dev.renzo.crud.dto;
+
+import java.util.List;
+
+import dev.renzo.crud.entity.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+
+public class CambiosProductoDTO {
+    // productos creados o modificados y ids eliminados despues del token recibido, en orden de cambio
+    private List<Producto> productos;
+    private List<Integer> eliminados;
+    private String siguienteToken;
+    private boolean hayMas;
+}
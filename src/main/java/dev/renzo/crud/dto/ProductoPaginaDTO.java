@@ -0,0 +1,17 @@
+package dev.renzo.crud.dto;
+
+import java.util.List;
+
+import dev.renzo.crud.entity.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+
+public class ProductoPaginaDTO {
+    private List<Producto> productos;
+    private Integer siguienteCursor;
+}
@@ -0,0 +1,17 @@
+package dev.renzo.crud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+
+public class ResultadoImportacionDTO {
+    private int fila;
+    private String nombre;
+    private Integer id;
+    private int estado;
+    private String mensaje;
+}
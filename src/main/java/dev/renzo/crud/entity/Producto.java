@@ -1,12 +1,17 @@
 package dev.renzo.crud.entity;
 
 import java.io.Serializable;
+import java.time.Instant;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -14,20 +19,43 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "producto")
+@Table(name = "producto", uniqueConstraints = @UniqueConstraint(name = "uk_producto_nombre", columnNames = "nombre"))
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Producto implements Serializable{
+    // largo de la columna nombre (VARCHAR(255) en V1__esquema_inicial.sql)
+    public static final int NOMBRE_MAX_LENGTH = 255;
+
+    // ids reservados de a bloques para que hibernate pueda agrupar los INSERT en batches (IDENTITY lo impide)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "producto_id")
+    @TableGenerator(name = "producto_id", table = "id_generator", pkColumnName = "nombre_secuencia",
+            valueColumnName = "siguiente_valor", pkColumnValue = "producto", allocationSize = 50)
     private int id;
+    @Column(length = NOMBRE_MAX_LENGTH)
     private String nombre;
     private float precio;
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+    // posicion del ultimo cambio en la secuencia de cambios (GET /products/changes?since=)
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long changeSeq;
+    private Instant lastModified;
 
     public Producto(String nombre, float precio) {
         this.nombre = nombre;
         this.precio = precio;
     }
-}
\ No newline at end of file
+
+    public Producto(Producto producto) {
+        this.id = producto.id;
+        this.nombre = producto.nombre;
+        this.precio = producto.precio;
+        this.version = producto.version;
+        this.changeSeq = producto.changeSeq;
+        this.lastModified = producto.lastModified;
+    }
+}
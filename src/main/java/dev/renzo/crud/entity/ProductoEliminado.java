@@ -0,0 +1,30 @@
+package dev.renzo.crud.entity;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// marca de un producto eliminado, para que la sincronizacion incremental tambien informe las bajas
+@Entity
+@Table(name = "producto_eliminado")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoEliminado implements Serializable{
+    @Id
+    private int id;
+    @Column(nullable = false)
+    private long changeSeq;
+    @Column(nullable = false)
+    private Instant eliminado;
+}
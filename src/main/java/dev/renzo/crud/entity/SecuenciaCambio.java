@@ -0,0 +1,32 @@
+package dev.renzo.crud.entity;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "secuencia_cambio")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SecuenciaCambio implements Serializable{
+    // ultimo valor asignado a un cambio de producto
+    public static final String PRODUCTO = "producto";
+    // mayor valor de las marcas de eliminacion ya purgadas: tokens anteriores requieren sincronizar todo
+    public static final String PRODUCTO_PURGADO = "producto-purgado";
+
+    @Id
+    @Column(length = 64)
+    private String nombre;
+    @Column(nullable = false)
+    private long valor;
+}
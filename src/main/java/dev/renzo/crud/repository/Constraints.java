@@ -0,0 +1,25 @@
+package dev.renzo.crud.repository;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+
+// nombres de los indices unicos de V1__esquema_inicial.sql. Una DataIntegrityViolationException tambien puede
+// ser un valor demasiado largo o un NOT NULL: solo la del indice indica un duplicado.
+public final class Constraints {
+    public static final String PRODUCTO_NOMBRE = "uk_producto_nombre";
+    public static final String USUARIO_NOMBRE_USUARIO = "uk_usuario_nombre_usuario";
+    public static final String USUARIO_EMAIL = "uk_usuario_email";
+
+    private Constraints() {
+    }
+
+    public static boolean violates(DataIntegrityViolationException e, String constraint) {
+        if (e.getCause() instanceof ConstraintViolationException
+                && StringUtils.containsIgnoreCase(((ConstraintViolationException) e.getCause()).getConstraintName(), constraint))
+            return true;
+
+        return StringUtils.containsIgnoreCase(NestedExceptionUtils.getMostSpecificCause(e).getMessage(), constraint);
+    }
+}
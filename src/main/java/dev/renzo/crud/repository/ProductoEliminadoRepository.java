@@ -0,0 +1,25 @@
+package dev.renzo.crud.repository;
+
+import dev.renzo.crud.entity.ProductoEliminado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ProductoEliminadoRepository extends JpaRepository<ProductoEliminado, Integer> {
+
+    List<ProductoEliminado> findByChangeSeqGreaterThanOrderByChangeSeqAsc(long changeSeq, Pageable pageable);
+
+    @Query("select max(e.changeSeq) from ProductoEliminado e where e.eliminado < :limite")
+    Long findMaxChangeSeqBefore(@Param("limite") Instant limite);
+
+    @Modifying
+    @Query("delete from ProductoEliminado e where e.eliminado < :limite")
+    int deleteBefore(@Param("limite") Instant limite);
+}
@@ -1,10 +1,19 @@
 package dev.renzo.crud.repository;
 
 import dev.renzo.crud.entity.Producto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<dev.renzo.crud.entity.Producto, Integer> {
@@ -12,4 +21,23 @@ public interface ProductoRepository extends JpaRepository<dev.renzo.crud.entity.
     Optional<Producto> findByNombre(String nombre);
 
     boolean existsByNombre(String nombre);
-}
\ No newline at end of file
+
+    @Query("select p.nombre from Producto p where p.nombre in :nombres")
+    List<String> findNombresIn(@Param("nombres") Collection<String> nombres);
+
+    List<Producto> findByIdGreaterThanOrderByIdAsc(int cursor, Pageable pageable);
+
+    // consultas de respaldo de ProductCatalog mientras el modelo en memoria no esta cargado o esta deshabilitado
+    List<Producto> findByPrecioBetweenOrderByPrecioAscIdAsc(float minPrecio, float maxPrecio, Pageable pageable);
+
+    List<Producto> findAllByOrderByPrecioAscIdAsc(Pageable pageable);
+
+    List<Producto> findByChangeSeqGreaterThanOrderByChangeSeqAsc(long changeSeq, Pageable pageable);
+
+    // el driver trae las filas de a bloques (requiere useCursorFetch=true en la URL de MySQL)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true") })
+    @Query("select p from Producto p order by p.id")
+    Stream<Producto> streamAllOrderById();
+}
@@ -0,0 +1,91 @@
+package dev.renzo.crud.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// ejecuta BCrypt en un pool propio y acotado: si el pool y la cola estan llenos se rechaza enseguida
+// en lugar de ocupar hilos de Tomcat que necesitan las lecturas de productos
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("password.hashing")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing")
+                .tag("operation", "matches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected").register(meterRegistry);
+        Gauge.builder("password.hashing.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException("Password hashing pool is saturated", e);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -3,11 +3,15 @@ package dev.renzo.crud.security;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -15,12 +19,15 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import dev.renzo.crud.security.jwt.JwtEntryPoint;
+import io.micrometer.core.instrument.MeterRegistry;
 import dev.renzo.crud.security.jwt.JwtTokenFilter;
 import dev.renzo.crud.security.service.UserDetailsServiceImpl;
 
@@ -34,14 +41,32 @@ public class MainSecurity {
     @Autowired
     private JwtEntryPoint jwtEntryPoint;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static final String METRICS_ROLE = "METRICS";
+
+    @Value("${metrics.scrape.username:prometheus}")
+    private String scrapeUsername;
+
+    @Value("${metrics.scrape.password:}")
+    private String scrapePassword;
+
+    @Value("${auth.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
     @Bean
     public JwtTokenFilter jwtTokenFilter() {
         return new JwtTokenFilter();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder() {
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, hashingQueueCapacity, meterRegistry);
     }
 
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
@@ -58,12 +83,43 @@ public class MainSecurity {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    // /actuator/prometheus con su propia credencial (HTTP Basic): los JWT de usuarios expiran, se revocan y
+    // sus claves rotan, asi que no sirven para un scraper. Sin metrics.scrape.password el endpoint queda cerrado
+    @Bean
+    @Order(1)
+    public SecurityFilterChain metricsScrapeSecurityFilterChain(HttpSecurity http) throws Exception {
+        DaoAuthenticationProvider scrapeProvider = new DaoAuthenticationProvider();
+        scrapeProvider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        // la password puede venir con prefijo de encoder ({bcrypt}...); sin prefijo se compara tal cual
+        scrapeProvider.setUserDetailsService(new InMemoryUserDetailsManager(User.withUsername(scrapeUsername)
+                .password(scrapePassword.startsWith("{") ? scrapePassword : "{noop}" + scrapePassword)
+                .roles(METRICS_ROLE)
+                .build()));
+
+        http
+                .antMatcher("/actuator/prometheus")
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> {
+                    if (scrapePassword.isEmpty())
+                        auth.anyRequest().denyAll();
+                    else
+                        auth.anyRequest().hasRole(METRICS_ROLE);
+                })
+                .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authenticationManager(new ProviderManager(scrapeProvider))
+                .httpBasic(Customizer.withDefaults());
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain defaultSecurityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .antMatchers("/auth/**", "/error").permitAll()
+                        .antMatchers("/auth/**", "/error", "/actuator/health", "/.well-known/jwks.json").permitAll()
+                        // metricas y startup exponen latencias, caches y el pool: solo administradores
+                        .antMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider())
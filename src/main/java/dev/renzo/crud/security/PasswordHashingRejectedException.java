@@ -0,0 +1,8 @@
+package dev.renzo.crud.security;
+
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
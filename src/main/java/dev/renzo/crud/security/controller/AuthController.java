@@ -8,6 +8,8 @@ import java.util.Set;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,12 +19,15 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import dev.renzo.crud.dto.MensajeDTO;
+import dev.renzo.crud.repository.Constraints;
+import dev.renzo.crud.security.PasswordHashingRejectedException;
 import dev.renzo.crud.security.dto.JwtDto;
 import dev.renzo.crud.security.dto.NuevoUsuario;
 import dev.renzo.crud.security.dto.LoginUsuario;
@@ -31,7 +36,9 @@ import dev.renzo.crud.security.entity.Usuario;
 import dev.renzo.crud.security.enums.RolNombre;
 import dev.renzo.crud.security.jwt.JwtProvider;
 import dev.renzo.crud.security.service.RolService;
+import dev.renzo.crud.security.service.TokenRevocationService;
 import dev.renzo.crud.security.service.UsuarioService;
+import io.jsonwebtoken.Claims;
 
 @RestController
 @RequestMapping("/auth")
@@ -48,15 +55,13 @@ public class AuthController {
     RolService rolService;
     @Autowired
     JwtProvider jwtProvider;
+    @Autowired
+    TokenRevocationService tokenRevocationService;
 
     @PostMapping("")
     public ResponseEntity<MensajeDTO> register(@Valid @RequestBody NuevoUsuario nuevoUsuario, BindingResult bindingResult) {
         if (bindingResult.hasErrors())
             return createRequestResponse("Error: Invalid data", HttpStatus.BAD_REQUEST);
-        if (usuarioService.existsByNombreUsuario(nuevoUsuario.getNombreUsuario()))
-            return createRequestResponse("Error: Username is already taken", HttpStatus.BAD_REQUEST);
-        if (usuarioService.existsByEmail(nuevoUsuario.getEmail()))
-            return createRequestResponse("Error: Email is already taken", HttpStatus.BAD_REQUEST);
 
         Usuario user = new Usuario(nuevoUsuario.getNombre(), nuevoUsuario.getNombreUsuario(), nuevoUsuario.getEmail(),
                 passwordEncoder.encode(nuevoUsuario.getPassword()));
@@ -77,7 +82,17 @@ public class AuthController {
             roles.add(adminRoleName.get());
 
         user.setRoles(roles);
-        usuarioService.save(user);
+        // nombreUsuario y email son unicos en la base: se inserta directamente y se traduce la violacion
+        try {
+            usuarioService.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (Constraints.violates(e, Constraints.USUARIO_EMAIL))
+                return createRequestResponse("Error: Email is already taken", HttpStatus.BAD_REQUEST);
+            if (Constraints.violates(e, Constraints.USUARIO_NOMBRE_USUARIO))
+                return createRequestResponse("Error: Username is already taken", HttpStatus.BAD_REQUEST);
+            // otra restriccion (un valor demasiado largo, un NOT NULL): no es un duplicado
+            return createRequestResponse("Error: Invalid user data", HttpStatus.BAD_REQUEST);
+        }
 
         return createRequestResponse("User registered successfully", HttpStatus.CREATED);
     }
@@ -103,6 +118,28 @@ public class AuthController {
 
     }
 
+    // revoca el token hasta su expiracion; los tokens emitidos antes de agregar el jti no se pueden revocar
+    @PostMapping("/logout")
+    public ResponseEntity<MensajeDTO> logout(@RequestBody JwtDto jwtDto) {
+        Claims claims = jwtProvider.verifyToken(jwtDto.getToken());
+        if (claims == null)
+            return createRequestResponse("Error: Invalid token", HttpStatus.UNAUTHORIZED);
+
+        if (claims.getId() == null || claims.getExpiration() == null)
+            return createRequestResponse("Error: Token can't be revoked", HttpStatus.BAD_REQUEST);
+
+        tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+        SecurityContextHolder.clearContext();
+        return createRequestResponse("Logged out successfully", HttpStatus.OK);
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<MensajeDTO> passwordHashingRejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new MensajeDTO("Error: Too many authentication requests, try again later"));
+    }
+
     private ResponseEntity<MensajeDTO> createRequestResponse(String message, HttpStatus httpStatus) {
         return new ResponseEntity<>(new MensajeDTO(message), httpStatus);
     }
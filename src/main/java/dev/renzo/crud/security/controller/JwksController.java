@@ -0,0 +1,37 @@
+package dev.renzo.crud.security.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import dev.renzo.crud.security.jwt.JwtKeyStore;
+
+@RestController
+@CrossOrigin
+public class JwksController {
+
+    @Autowired
+    JwtKeyStore jwtKeyStore;
+
+    // claves publicas para verificar los tokens localmente (gateway, sidecars); la siguiente clave ya
+    // esta publicada antes de rotar, asi que los verificadores pueden cachear la respuesta
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks() {
+        String jwks = jwtKeyStore.getJwks();
+        if (jwks == null)
+            return ResponseEntity.notFound().build();
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .eTag("\"" + DigestUtils.md5DigestAsHex(jwks.getBytes(StandardCharsets.UTF_8)) + "\"")
+                .body(jwks);
+    }
+}
@@ -0,0 +1,43 @@
+package dev.renzo.crud.security.entity;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "token_revocado", uniqueConstraints = @UniqueConstraint(name = "uk_token_revocado_jti", columnNames = "jti"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocado implements Serializable{
+    // el id creciente permite que cada instancia lea solo las revocaciones nuevas (mas el margen sync-window)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    @Column(nullable = false, length = 64)
+    private String jti;
+    // la fila deja de ser necesaria cuando el token expira
+    @Column(nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiracion;
+
+    public TokenRevocado(String jti, Date expiracion) {
+        this.jti = jti;
+        this.expiracion = expiracion;
+    }
+}
@@ -5,11 +5,26 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import dev.renzo.crud.security.enums.RolNombre;
+
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class UsuarioPrincipal implements UserDetails {
+    // una unica instancia de GrantedAuthority por rol, compartida por todos los usuarios
+    private static final Map<RolNombre, GrantedAuthority> AUTHORITIES;
+
+    static {
+        Map<RolNombre, GrantedAuthority> authorities = new EnumMap<>(RolNombre.class);
+        for (RolNombre rolNombre : RolNombre.values())
+            authorities.put(rolNombre, new SimpleGrantedAuthority(rolNombre.name()));
+        AUTHORITIES = Collections.unmodifiableMap(authorities);
+    }
+
     private String nombre;
     private String nombreUsuario;
     private String email;
@@ -27,12 +42,27 @@ public class UsuarioPrincipal implements UserDetails {
 
     public static UsuarioPrincipal build(Usuario usuario) {
         List<GrantedAuthority> authorities = usuario.getRoles().stream()
-                .map(rol -> new SimpleGrantedAuthority(rol.getRolNombre().name())).collect(Collectors.toList());
+                .map(rol -> AUTHORITIES.get(rol.getRolNombre())).collect(Collectors.toList());
 
         return new UsuarioPrincipal(usuario.getNombre(), usuario.getNombreUsuario(), usuario.getEmail(),
                 usuario.getPassword(), authorities);
     }
 
+    public static UsuarioPrincipal build(String nombreUsuario, Collection<String> roles) {
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(UsuarioPrincipal::authorityOf).collect(Collectors.toList());
+
+        return new UsuarioPrincipal(null, nombreUsuario, null, null, authorities);
+    }
+
+    public static GrantedAuthority authorityOf(String rol) {
+        try {
+            return AUTHORITIES.get(RolNombre.valueOf(rol));
+        } catch (IllegalArgumentException e) {
+            return new SimpleGrantedAuthority(rol);
+        }
+    }
+
     public String getNombre() {
         return nombre;
     }
@@ -0,0 +1,210 @@
+package dev.renzo.crud.security.jwt;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+
+// claves ES256 con kid para firmar tokens (jwt.signing.algorithm=ES256). Las claves salen de un JWK Set
+// (jwt.signing.jwks-path, compartido entre instancias y releido al cambiar) o se generan en memoria y rotan
+// cada jwt.signing.rotation-interval-ms. Una clave retirada se sigue publicando mientras haya tokens vigentes
+// firmados con ella, y la siguiente clave se publica antes de empezar a usarse.
+@Component
+public class JwtKeyStore {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyStore.class);
+
+    @Value("${jwt.signing.algorithm:HS512}")
+    private String algorithm;
+
+    @Value("${jwt.signing.jwks-path:}")
+    private String jwksPath;
+
+    @Value("${jwt.signing.active-kid:}")
+    private String activeKid;
+
+    @Value("${jwt.signing.rotation-interval-ms:86400000}")
+    private long rotationIntervalMs;
+
+    @Value("${jwt.expiration}")
+    private long expiration;
+
+    private static final class Keys {
+        final String activeKid;
+        final ECPrivateKey activeKey;
+        final Map<String, ECPublicKey> verificationKeys;
+        final String jwks;
+
+        Keys(ECKey active, List<ECKey> published) throws JOSEException {
+            this.activeKid = active.getKeyID();
+            this.activeKey = active.toECPrivateKey();
+            Map<String, ECPublicKey> publicKeys = new HashMap<>();
+            List<JWK> publicJwks = new ArrayList<>();
+            for (ECKey key : published) {
+                publicKeys.put(key.getKeyID(), key.toECPublicKey());
+                publicJwks.add(key.toPublicJWK());
+            }
+            this.verificationKeys = Collections.unmodifiableMap(publicKeys);
+            this.jwks = new JWKSet(publicJwks).toString();
+        }
+    }
+
+    private static final class RetiredKey {
+        final ECKey key;
+        final long retiredAt;
+
+        RetiredKey(ECKey key, long retiredAt) {
+            this.key = key;
+            this.retiredAt = retiredAt;
+        }
+    }
+
+    private volatile Keys keys;
+    private long jwksLastModified;
+
+    // solo para claves generadas en memoria
+    private ECKey active;
+    private ECKey next;
+    private long activeSince;
+    private final List<RetiredKey> retired = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled())
+            return;
+
+        if (StringUtils.isNotBlank(jwksPath)) {
+            loadJwks();
+        } else {
+            logger.warn("jwt.signing.jwks-path is not set: generating in-memory signing keys, "
+                    + "tokens will not verify on other instances or after a restart");
+            active = generate();
+            next = generate();
+            activeSince = System.currentTimeMillis();
+            publishGenerated();
+        }
+    }
+
+    public boolean isEnabled() {
+        return "ES256".equalsIgnoreCase(algorithm);
+    }
+
+    public String getActiveKid() {
+        return keys.activeKid;
+    }
+
+    public ECPrivateKey getActiveKey() {
+        return keys.activeKey;
+    }
+
+    public ECPublicKey getVerificationKey(String kid) {
+        return kid != null ? keys.verificationKeys.get(kid) : null;
+    }
+
+    // JWK Set publico ya serializado; null si no se firma con ES256
+    public String getJwks() {
+        return isEnabled() ? keys.jwks : null;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.signing.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (!isEnabled())
+            return;
+
+        if (StringUtils.isNotBlank(jwksPath)) {
+            if (new File(jwksPath).lastModified() != jwksLastModified)
+                loadJwks();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - activeSince >= rotationIntervalMs) {
+            retired.add(new RetiredKey(active, now));
+            active = next;
+            next = generate();
+            activeSince = now;
+            logger.info("Rotated JWT signing key, active kid {}", active.getKeyID());
+        }
+        // una clave retirada deja de publicarse cuando expiro el ultimo token que pudo firmar
+        retired.removeIf(key -> now - key.retiredAt > expiration);
+        publishGenerated();
+    }
+
+    private synchronized void loadJwks() {
+        File file = new File(jwksPath);
+        try {
+            List<ECKey> published = new ArrayList<>();
+            ECKey signing = null;
+            for (JWK jwk : JWKSet.load(file).getKeys()) {
+                if (!(jwk instanceof ECKey))
+                    continue;
+                ECKey key = (ECKey) jwk;
+                published.add(key);
+                if (key.isPrivate() && (StringUtils.isBlank(activeKid)
+                        ? signing == null : activeKid.equals(key.getKeyID())))
+                    signing = key;
+            }
+            if (signing == null)
+                throw new IllegalStateException("No private EC signing key found in " + jwksPath);
+
+            keys = new Keys(signing, published);
+            jwksLastModified = file.lastModified();
+            logger.info("Loaded {} JWT verification keys from {}, active kid {}", published.size(), jwksPath,
+                    signing.getKeyID());
+        } catch (IOException | ParseException | JOSEException e) {
+            // con claves ya cargadas se conservan; al arrancar el error es fatal
+            if (keys == null)
+                throw new IllegalStateException("Could not load JWT signing keys from " + jwksPath, e);
+            logger.error("Could not reload JWT signing keys from {}: {}", jwksPath, e.getMessage());
+        }
+    }
+
+    private void publishGenerated() {
+        List<ECKey> published = new ArrayList<>();
+        published.add(active);
+        published.add(next);
+        for (RetiredKey key : retired)
+            published.add(key.key);
+        try {
+            keys = new Keys(active, published);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Invalid generated JWT signing key", e);
+        }
+    }
+
+    private static ECKey generate() {
+        try {
+            return new ECKeyGenerator(Curve.P_256)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.ES256)
+                    .keyID(UUID.randomUUID().toString())
+                    .generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not generate a JWT signing key", e);
+        }
+    }
+}
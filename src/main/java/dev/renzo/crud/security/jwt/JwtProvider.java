@@ -1,65 +1,208 @@
 package dev.renzo.crud.security.jwt;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import dev.renzo.crud.security.dto.JwtDto;
 import dev.renzo.crud.security.entity.UsuarioPrincipal;
+import dev.renzo.crud.security.service.TokenRevocationService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.impl.TextCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 @Component
 public class JwtProvider {
     private static final Logger logger = LoggerFactory.getLogger(JwtProvider.class);
 
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private JwtKeyStore jwtKeyStore;
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private int expiration;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    // HS512 (secreto compartido jwt.secret) o ES256 (claves de JwtKeyStore, publicadas en /.well-known/jwks.json)
+    @Value("${jwt.signing.algorithm:HS512}")
+    private String algorithm;
+
+    private Key signingKey;
+    private boolean asymmetric;
+    private Cache<ByteBuffer, Claims> claimsCache;
+
+    // solo se acepta el algoritmo configurado; con ES256 la clave se elige por el kid del header
+    private final SigningKeyResolverAdapter signingKeyResolver = new SigningKeyResolverAdapter() {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            if (!asymmetric) {
+                if (!SignatureAlgorithm.HS512.getValue().equals(header.getAlgorithm()))
+                    throw new UnsupportedJwtException("Unexpected signing algorithm " + header.getAlgorithm());
+                return signingKey;
+            }
+
+            if (!SignatureAlgorithm.ES256.getValue().equals(header.getAlgorithm()))
+                throw new UnsupportedJwtException("Unexpected signing algorithm " + header.getAlgorithm());
+            Key key = jwtKeyStore.getVerificationKey(header.getKeyId());
+            if (key == null)
+                throw new SignatureException("Unknown signing key " + header.getKeyId());
+            return key;
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        asymmetric = "ES256".equalsIgnoreCase(algorithm);
+        if (!asymmetric && algorithm != null && !"HS512".equalsIgnoreCase(algorithm))
+            throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+
+        // jjwt interpreta el secreto como Base64, igual que signWith(SignatureAlgorithm, String)
+        signingKey = new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS512.getJcaName());
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwt-claims");
+    }
+
     public String generateToken(Authentication authentication) {
         UsuarioPrincipal principal = (UsuarioPrincipal) authentication.getPrincipal();
         List<String> roles = principal.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
 
-        return Jwts.builder()
+        return sign(Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(principal.getUsername())
                 .claim("roles", roles)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(new Date().getTime()+expiration))
-                .signWith(SignatureAlgorithm.HS512, secret)
-                .compact();
+                .setExpiration(new Date(new Date().getTime()+expiration)));
+    }
+
+    // verifica firma y expiracion una sola vez; los claims quedan en cache (por digest del token) hasta que expira.
+    // La revocacion se revisa en cada llamada, porque puede ocurrir despues de cachear los claims
+    public Claims verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            logger.error("Error: Token is empty");
+            return null;
+        }
+
+        ByteBuffer key = digest(token);
+        Claims claims = claimsCache.getIfPresent(key);
+        if (claims == null || isExpired(claims)) {
+            claims = parseClaims(token);
+            if (claims == null)
+                return null;
+            claimsCache.put(key, claims);
+        }
+
+        if (tokenRevocationService.isRevoked(claims.getId())) {
+            logger.error("Error: Token is revoked");
+            return null;
+        }
+
+        return claims;
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        Claims claims = verifyToken(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     public boolean validateToken(String token) {
+        return verifyToken(token) != null;
+    }
+
+    public String refreshToken(JwtDto jwtDto) {
+        try {
+            Claims claims = verifyToken(jwtDto.getToken());
+            if (claims == null)
+                return null;
+
+            String username = claims.getSubject();
+            List<String> roles = (List<String>) claims.get("roles");
+
+            return sign(Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(username)
+                .claim("roles", roles)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(new Date().getTime()+expiration)));
+        } catch (Exception e) {
+            logger.error("Error refreshing token: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    private String sign(JwtBuilder builder) {
+        if (!asymmetric)
+            return builder.signWith(SignatureAlgorithm.HS512, signingKey).compact();
+
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, jwtKeyStore.getActiveKid())
+                .signWith(SignatureAlgorithm.ES256, jwtKeyStore.getActiveKey())
+                .compact();
+    }
+
+    private Claims parseClaims(String token) {
         try {
-            Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token);
-            return true;
+            return Jwts.parser()
+                .setSigningKeyResolver(signingKeyResolver)
+                .parseClaimsJws(token)
+                .getBody();
         } catch (MalformedJwtException e) {
             logger.error("Error: Token is malformed");
         } catch (UnsupportedJwtException e) {
@@ -72,31 +215,37 @@ public class JwtProvider {
             logger.error("Error: Token has an invalid signature");
         }
 
-        return false;
+        return null;
     }
 
-    public String refreshToken(JwtDto jwtDto) {
-        try {
-            Claims claims = Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(jwtDto.getToken())
-                .getBody();
+    private static boolean isExpired(Claims claims) {
+        Date exp = claims.getExpiration();
+        return exp != null && exp.getTime() <= System.currentTimeMillis();
+    }
 
-            String username = claims.getSubject();
-            List<String> roles = (List<String>) claims.get("roles");
+    private static ByteBuffer digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        sha256.reset();
+        return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
 
-            return Jwts.builder()
-                .setSubject(username)
-                .claim("roles", roles)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(new Date().getTime()+expiration))
-                .signWith(SignatureAlgorithm.HS512, secret)
-                .compact();
-        } catch (Exception e) {
-            logger.error("Error refreshing token: " + e.getMessage());
+    private static class ClaimsExpiry implements Expiry<ByteBuffer, Claims> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+            Date exp = claims.getExpiration();
+            if (exp == null)
+                return Long.MAX_VALUE;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, exp.getTime() - System.currentTimeMillis()));
         }
 
-        return null;
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
-
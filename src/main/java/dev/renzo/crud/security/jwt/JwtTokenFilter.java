@@ -1,6 +1,8 @@
 package dev.renzo.crud.security.jwt;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -10,12 +12,17 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import dev.renzo.crud.security.entity.UsuarioPrincipal;
 import dev.renzo.crud.security.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 public class JwtTokenFilter extends OncePerRequestFilter {
 
@@ -26,15 +33,39 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
+
+    private Timer verifyTimer;
+    private Timer principalTimer;
+
+    @Override
+    protected void initFilterBean() {
+        verifyTimer = Timer.builder("jwt.filter")
+                .tag("stage", "verify")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        principalTimer = Timer.builder("jwt.filter")
+                .tag("stage", stateless ? "claims-principal" : "load-user")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
             String token = getToken(request);
 
-            if (token != null && jwtProvider.validateToken(token)) {
-                String username = jwtProvider.getUsernameFromToken(token);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = token != null ? verifyTimer.record(() -> jwtProvider.verifyToken(token)) : null;
+
+            if (claims != null) {
+                UserDetails userDetails = principalTimer.record(() -> stateless
+                        ? buildPrincipalFromClaims(claims)
+                        : userDetailsService.loadUserByUsername(claims.getSubject()));
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -45,7 +76,16 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private String getToken(HttpServletRequest request) {
+    @SuppressWarnings("unchecked")
+    private UserDetails buildPrincipalFromClaims(Claims claims) {
+        List<String> roles = claims.get("roles", List.class);
+        if (roles == null)
+            roles = Collections.emptyList();
+
+        return UsuarioPrincipal.build(claims.getSubject(), roles);
+    }
+
+    String getToken(HttpServletRequest request) {
         String header = request.getHeader("Authorization");
 
         if (header != null && header.startsWith("Bearer"))
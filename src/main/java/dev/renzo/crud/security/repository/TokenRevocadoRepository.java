@@ -0,0 +1,21 @@
+package dev.renzo.crud.security.repository;
+
+import dev.renzo.crud.security.entity.TokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, Long> {
+
+    List<TokenRevocado> findByIdGreaterThanAndExpiracionAfterOrderByIdAsc(long id, Date now);
+
+    @Modifying
+    @Query("delete from TokenRevocado t where t.expiracion <= :now")
+    int deleteExpired(@Param("now") Date now);
+}
@@ -0,0 +1,55 @@
+package dev.renzo.crud.security.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// filtro de Bloom concurrente para strings: mightContain nunca da falsos negativos,
+// asi que un resultado false evita consultar el conjunto exacto
+class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.max(1, (m + 63) >>> 6));
+        this.bits = (long) words.length() << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    void add(String value) {
+        long h1 = hash(value, 0xcbf29ce484222325L);
+        long h2 = hash(value, 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    boolean mightContain(String value) {
+        long h1 = hash(value, 0xcbf29ce484222325L);
+        long h2 = hash(value, 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    // FNV-1a de 64 bits con la mezcla final de MurmurHash3
+    private static long hash(String value, long seed) {
+        long h = seed;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
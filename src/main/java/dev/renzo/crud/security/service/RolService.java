@@ -7,8 +7,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 
+import javax.annotation.PostConstruct;
+
 @Service
 @Transactional
 
@@ -17,11 +22,28 @@ public class RolService {
     @Autowired
     RolRepository rolRepository;
 
+    // la tabla rol no cambia en tiempo de ejecucion: se carga una vez al arrancar
+    private Map<RolNombre, Rol> roles;
+
+    @PostConstruct
+    public void init() {
+        Map<RolNombre, Rol> loaded = new EnumMap<>(RolNombre.class);
+        for (Rol rol : rolRepository.findAll())
+            loaded.put(rol.getRolNombre(), rol);
+
+        for (RolNombre rolNombre : RolNombre.values()) {
+            if (!loaded.containsKey(rolNombre))
+                loaded.put(rolNombre, rolRepository.save(new Rol(rolNombre)));
+        }
+
+        roles = Collections.unmodifiableMap(loaded);
+    }
+
     public Optional<Rol> getByRolNombre(RolNombre rolNombre){
-        return rolRepository.findByRolNombre(rolNombre);
+        return Optional.ofNullable(roles.get(rolNombre));
     }
 
     public void save(Rol rol){
         rolRepository.save(rol);
     }
-}
\ No newline at end of file
+}
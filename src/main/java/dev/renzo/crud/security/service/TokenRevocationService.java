@@ -0,0 +1,131 @@
+package dev.renzo.crud.security.service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import dev.renzo.crud.security.entity.TokenRevocado;
+import dev.renzo.crud.security.repository.TokenRevocadoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// tokens revocados (por jti) hasta su expiracion. En cada request solo se consulta el filtro de Bloom;
+// el mapa exacto se revisa unicamente ante un positivo. La tabla token_revocado se lee al arrancar y
+// periodicamente (solo las filas nuevas), nunca por request.
+@Service
+public class TokenRevocationService {
+
+    @Autowired
+    TokenRevocadoRepository tokenRevocadoRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${jwt.revocation.expected-tokens:100000}")
+    private long expectedTokens;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // MySQL asigna el AUTO_INCREMENT al insertar y no al confirmar: una fila con id menor puede aparecer
+    // despues de que se leyo una mayor, asi que cada sync vuelve a leer este margen de ids ya vistos
+    @Value("${jwt.revocation.sync-window:1000}")
+    private long syncWindow;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+    private volatile long lastSyncedId;
+    // remember() agrega al mapa y al filtro bajo el lock de lectura; la reconstruccion del filtro toma el de
+    // escritura, asi ningun jti queda solo en el filtro reemplazado
+    private final ReadWriteLock filterLock = new ReentrantReadWriteLock();
+    private Counter falsePositives;
+
+    @PostConstruct
+    public void init() {
+        falsePositives = Counter.builder("jwt.revocation.bloom.false-positives").register(meterRegistry);
+        Gauge.builder("jwt.revocation.tokens", revoked, Map::size).register(meterRegistry);
+        bloomFilter = new BloomFilter(expectedTokens, falsePositiveRate);
+        reload();
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti))
+            return false;
+
+        Long expiresAt = revoked.get(jti);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis())
+            return true;
+
+        falsePositives.increment();
+        return false;
+    }
+
+    public void revoke(String jti, Date expiracion) {
+        try {
+            tokenRevocadoRepository.saveAndFlush(new TokenRevocado(jti, expiracion));
+        } catch (DataIntegrityViolationException e) {
+            // ya estaba revocado (por esta u otra instancia)
+        }
+        remember(jti, expiracion.getTime());
+    }
+
+    // revocaciones hechas en otras instancias
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        long since = Math.max(0, lastSyncedId - syncWindow);
+        for (TokenRevocado token : tokenRevocadoRepository.findByIdGreaterThanAndExpiracionAfterOrderByIdAsc(
+                since, new Date())) {
+            remember(token.getJti(), token.getExpiracion().getTime());
+            lastSyncedId = Math.max(lastSyncedId, token.getId());
+        }
+    }
+
+    // borra las entradas expiradas y reconstruye el filtro de Bloom, que no admite eliminar elementos.
+    // La recarga completa tambien recupera filas que se confirmaron por detras del margen de sync-window.
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval-ms:600000}",
+            initialDelayString = "${jwt.revocation.purge-interval-ms:600000}")
+    @Transactional
+    public void purge() {
+        tokenRevocadoRepository.deleteExpired(new Date());
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        reload();
+    }
+
+    private synchronized void reload() {
+        lastSyncedId = 0;
+        sync();
+
+        filterLock.writeLock().lock();
+        try {
+            BloomFilter rebuilt = new BloomFilter(expectedTokens, falsePositiveRate);
+            for (String jti : revoked.keySet())
+                rebuilt.add(jti);
+            bloomFilter = rebuilt;
+        } finally {
+            filterLock.writeLock().unlock();
+        }
+    }
+
+    private void remember(String jti, long expiresAt) {
+        filterLock.readLock().lock();
+        try {
+            revoked.put(jti, expiresAt);
+            bloomFilter.add(jti);
+        } finally {
+            filterLock.readLock().unlock();
+        }
+    }
+}
@@ -14,8 +14,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UsuarioService usuarioService;
 
+    @Autowired
+    UsuarioPrincipalCache usuarioPrincipalCache;
+
     @Override
     public UserDetails loadUserByUsername(String nombreUsuario) throws UsernameNotFoundException {
+        return usuarioPrincipalCache.get(nombreUsuario, this::loadFromDatabase);
+    }
+
+    private UsuarioPrincipal loadFromDatabase(String nombreUsuario) {
         Usuario usuario = usuarioService.getByNombreUsuario(nombreUsuario).get();
         return UsuarioPrincipal.build(usuario);
     }
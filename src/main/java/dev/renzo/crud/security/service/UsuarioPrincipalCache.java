@@ -0,0 +1,51 @@
+package dev.renzo.crud.security.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import dev.renzo.crud.security.entity.UsuarioPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Component
+public class UsuarioPrincipalCache {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${usuario.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${usuario.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<String, UsuarioPrincipal> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "usuarios");
+    }
+
+    public UsuarioPrincipal get(String nombreUsuario, Function<String, UsuarioPrincipal> loader) {
+        return cache.get(nombreUsuario, loader);
+    }
+
+    public void evict(String nombreUsuario) {
+        cache.invalidate(nombreUsuario);
+    }
+}
@@ -5,6 +5,8 @@ import dev.renzo.crud.security.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Optional;
 
@@ -16,6 +18,9 @@ public class UsuarioService {
     @Autowired
     UsuarioRepository usuarioRepository;
 
+    @Autowired
+    UsuarioPrincipalCache usuarioPrincipalCache;
+
     public Optional<Usuario> getByNombreUsuario(String nombreUsuario){
         return usuarioRepository.findByNombreUsuario(nombreUsuario);
     }
@@ -30,5 +35,21 @@ public class UsuarioService {
 
     public void save(Usuario usuario){
         usuarioRepository.save(usuario);
+        evictAfterCommit(usuario.getNombreUsuario());
+    }
+
+    // se invalida despues del commit para que una lectura concurrente no vuelva a cachear los datos viejos
+    private void evictAfterCommit(String nombreUsuario) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            usuarioPrincipalCache.evict(nombreUsuario);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                usuarioPrincipalCache.evict(nombreUsuario);
+            }
+        });
     }
-}
\ No newline at end of file
+}
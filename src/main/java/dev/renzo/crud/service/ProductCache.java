@@ -0,0 +1,111 @@
+package dev.renzo.crud.service;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import dev.renzo.crud.entity.Producto;
+import dev.renzo.crud.repository.ProductoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Component
+public class ProductCache {
+
+    @Autowired
+    ProductoRepository productoRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${producto.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${producto.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${producto.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    // tambien se guardan los resultados vacios, asi los 404 repetidos no llegan a la base
+    private Cache<Integer, Optional<Producto>> byId;
+    // el indice por nombre solo guarda el id; el producto se resuelve siempre desde byId
+    private Cache<String, Optional<Integer>> idByNombre;
+
+    @PostConstruct
+    public void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        idByNombre = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "productos");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByNombre, "productos-por-nombre");
+    }
+
+    public Optional<Producto> getById(int id) {
+        if (!enabled)
+            return productoRepository.findById(id);
+
+        return byId.get(id, this::loadById).map(Producto::new);
+    }
+
+    public Optional<Producto> getByNombre(String nombre) {
+        // Caffeine no acepta claves null; sin cache el repositorio devolvia vacio
+        if (nombre == null)
+            return Optional.empty();
+        if (!enabled)
+            return productoRepository.findByNombre(nombre);
+
+        Optional<Integer> id = idByNombre.get(nombre, this::loadIdByNombre);
+        if (!id.isPresent())
+            return Optional.empty();
+
+        Optional<Producto> producto = getById(id.get());
+        if (producto.isPresent() && producto.get().getNombre().equalsIgnoreCase(nombre))
+            return producto;
+
+        // el producto cambio de nombre o se elimino: se vuelve a consultar una vez
+        idByNombre.invalidate(nombre);
+        id = idByNombre.get(nombre, this::loadIdByNombre);
+        return id.isPresent() ? getById(id.get()) : Optional.empty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        Producto producto = event.getProducto();
+
+        if (event.getType() == ProductChangeEvent.Type.DELETED) {
+            byId.put(producto.getId(), Optional.empty());
+            idByNombre.put(producto.getNombre(), Optional.empty());
+        } else {
+            byId.put(producto.getId(), Optional.of(new Producto(producto)));
+            idByNombre.put(producto.getNombre(), Optional.of(producto.getId()));
+        }
+    }
+
+    private Optional<Producto> loadById(int id) {
+        return productoRepository.findById(id).map(Producto::new);
+    }
+
+    private Optional<Integer> loadIdByNombre(String nombre) {
+        Optional<Producto> producto = productoRepository.findByNombre(nombre);
+        producto.ifPresent(p -> byId.put(p.getId(), Optional.of(new Producto(p))));
+        return producto.map(Producto::getId);
+    }
+}
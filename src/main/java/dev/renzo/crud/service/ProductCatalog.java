@@ -0,0 +1,317 @@
+package dev.renzo.crud.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import dev.renzo.crud.entity.Producto;
+import dev.renzo.crud.repository.ProductoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// modelo de lectura del catalogo en columnas primitivas ordenadas por (precio, id):
+// los rangos de precio y los N mas baratos se resuelven con busqueda binaria, sin consultar MySQL.
+// Los cambios se acumulan y se aplican en una sola mezcla en la siguiente lectura.
+@Component
+public class ProductCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalog.class);
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    @Autowired
+    ProductoRepository productoRepository;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${producto.catalog.enabled:true}")
+    private boolean enabled;
+
+    private static final class Columns {
+        static final Columns EMPTY = new Columns(new int[0], new float[0], new String[0], new long[0], new long[0],
+                new long[0]);
+
+        final int[] ids;
+        final float[] precios;
+        final String[] nombres;
+        final long[] versiones;
+        final long[] changeSeqs;
+        // epoch en milisegundos; NO_TIMESTAMP si la fila no tiene lastModified
+        final long[] lastModified;
+
+        Columns(int[] ids, float[] precios, String[] nombres, long[] versiones, long[] changeSeqs,
+                long[] lastModified) {
+            this.ids = ids;
+            this.precios = precios;
+            this.nombres = nombres;
+            this.versiones = versiones;
+            this.changeSeqs = changeSeqs;
+            this.lastModified = lastModified;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        long sortKey(int row) {
+            return ProductCatalog.sortKey(precios[row], ids[row]);
+        }
+
+        Producto producto(int row) {
+            return new Producto(ids[row], nombres[row], precios[row], versiones[row], changeSeqs[row],
+                    lastModified[row] == NO_TIMESTAMP ? null : Instant.ofEpochMilli(lastModified[row]));
+        }
+    }
+
+    // null hasta que termina la carga inicial; mientras tanto se consulta el repositorio
+    private volatile Columns columns;
+    // cambios pendientes por id (null = eliminado), en orden de llegada
+    private final Map<Integer, Producto> pending = new LinkedHashMap<>();
+    private volatile boolean dirty;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled)
+            return;
+
+        long start = System.currentTimeMillis();
+        IdOrderedRows rows = new IdOrderedRows();
+        productService.forEach(rows::add);
+        columns = rows.sortByPrecio();
+        dirty = true;
+
+        Gauge.builder("producto.catalog.size", this, catalog -> catalog.current().size())
+                .register(meterRegistry);
+        logger.info("Product catalog built with {} products in {} ms", columns.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (!enabled)
+            return;
+
+        Producto producto = event.getProducto();
+        synchronized (pending) {
+            // se reinserta para que el ultimo cambio de cada id quede al final
+            pending.remove(producto.getId());
+            pending.put(producto.getId(),
+                    event.getType() == ProductChangeEvent.Type.DELETED ? null : new Producto(producto));
+            dirty = true;
+        }
+    }
+
+    public List<Producto> findByPrecioBetween(float minPrecio, float maxPrecio, int limit) {
+        Columns current = current();
+        if (current == null)
+            return productoRepository.findByPrecioBetweenOrderByPrecioAscIdAsc(minPrecio, maxPrecio,
+                    PageRequest.of(0, limit));
+
+        int from = lowerBound(current.precios, minPrecio);
+        int to = Math.min(upperBound(current.precios, maxPrecio), from + limit);
+        return rows(current, from, to);
+    }
+
+    public List<Producto> findCheapest(int limit) {
+        Columns current = current();
+        if (current == null)
+            return productoRepository.findAllByOrderByPrecioAscIdAsc(PageRequest.of(0, limit));
+
+        return rows(current, 0, Math.min(current.size(), limit));
+    }
+
+    private Columns current() {
+        if (!enabled || columns == null)
+            return null;
+        if (dirty)
+            applyPending();
+        return columns;
+    }
+
+    // las mezclas se serializan; una rafaga de escrituras se aplica en una sola pasada
+    private synchronized void applyPending() {
+        Map<Integer, Producto> changes;
+        synchronized (pending) {
+            if (!dirty)
+                return;
+            changes = new LinkedHashMap<>(pending);
+            pending.clear();
+            dirty = false;
+        }
+        if (!changes.isEmpty())
+            columns = merge(columns, changes);
+    }
+
+    private static Columns merge(Columns base, Map<Integer, Producto> changes) {
+        int[] changedIds = new int[changes.size()];
+        List<Producto> added = new ArrayList<>(changes.size());
+        int c = 0;
+        for (Map.Entry<Integer, Producto> change : changes.entrySet()) {
+            changedIds[c++] = change.getKey();
+            if (change.getValue() != null)
+                added.add(change.getValue());
+        }
+        Arrays.sort(changedIds);
+        added.sort((a, b) -> Long.compare(sortKey(a.getPrecio(), a.getId()), sortKey(b.getPrecio(), b.getId())));
+
+        int kept = 0;
+        for (int row = 0; row < base.size(); row++) {
+            if (Arrays.binarySearch(changedIds, base.ids[row]) < 0)
+                kept++;
+        }
+
+        int size = kept + added.size();
+        int[] ids = new int[size];
+        float[] precios = new float[size];
+        String[] nombres = new String[size];
+        long[] versiones = new long[size];
+        long[] changeSeqs = new long[size];
+        long[] lastModified = new long[size];
+
+        int row = 0;
+        int next = 0;
+        for (int out = 0; out < size; out++) {
+            while (row < base.size() && Arrays.binarySearch(changedIds, base.ids[row]) >= 0)
+                row++;
+
+            boolean takeBase = row < base.size() && (next == added.size()
+                    || base.sortKey(row) < sortKey(added.get(next).getPrecio(), added.get(next).getId()));
+            if (takeBase) {
+                ids[out] = base.ids[row];
+                precios[out] = base.precios[row];
+                nombres[out] = base.nombres[row];
+                versiones[out] = base.versiones[row];
+                changeSeqs[out] = base.changeSeqs[row];
+                lastModified[out] = base.lastModified[row];
+                row++;
+            } else {
+                Producto producto = added.get(next++);
+                ids[out] = producto.getId();
+                precios[out] = producto.getPrecio();
+                nombres[out] = producto.getNombre();
+                versiones[out] = producto.getVersion();
+                changeSeqs[out] = producto.getChangeSeq();
+                lastModified[out] = epochMillis(producto.getLastModified());
+            }
+        }
+        return new Columns(ids, precios, nombres, versiones, changeSeqs, lastModified);
+    }
+
+    private static List<Producto> rows(Columns columns, int from, int to) {
+        List<Producto> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int row = from; row < to; row++)
+            result.add(columns.producto(row));
+        return result;
+    }
+
+    // primer indice con precio >= key
+    private static int lowerBound(float[] precios, float key) {
+        int low = 0;
+        int high = precios.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (precios[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    // primer indice con precio > key
+    private static int upperBound(float[] precios, float key) {
+        int low = 0;
+        int high = precios.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (precios[mid] <= key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static long epochMillis(Instant instant) {
+        return instant == null ? NO_TIMESTAMP : instant.toEpochMilli();
+    }
+
+    // (precio, id) empaquetado en un long que ordena igual que la comparacion de floats
+    static long sortKey(float precio, int id) {
+        int bits = Float.floatToIntBits(precio + 0.0f);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return ((long) bits << 32) | (id & 0xffffffffL);
+    }
+
+    // filas en el orden del stream (por id); se reordenan por precio ordenando claves long, sin boxing
+    private static final class IdOrderedRows {
+        private int[] ids = new int[1024];
+        private float[] precios = new float[1024];
+        private String[] nombres = new String[1024];
+        private long[] versiones = new long[1024];
+        private long[] changeSeqs = new long[1024];
+        private long[] lastModified = new long[1024];
+        private int size;
+
+        void add(Producto producto) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                precios = Arrays.copyOf(precios, size * 2);
+                nombres = Arrays.copyOf(nombres, size * 2);
+                versiones = Arrays.copyOf(versiones, size * 2);
+                changeSeqs = Arrays.copyOf(changeSeqs, size * 2);
+                lastModified = Arrays.copyOf(lastModified, size * 2);
+            }
+            ids[size] = producto.getId();
+            precios[size] = producto.getPrecio();
+            nombres[size] = producto.getNombre();
+            versiones[size] = producto.getVersion();
+            changeSeqs[size] = producto.getChangeSeq();
+            lastModified[size] = epochMillis(producto.getLastModified());
+            size++;
+        }
+
+        Columns sortByPrecio() {
+            if (size == 0)
+                return Columns.EMPTY;
+
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++)
+                keys[i] = sortKey(precios[i], ids[i]);
+            Arrays.sort(keys);
+
+            int[] sortedIds = new int[size];
+            float[] sortedPrecios = new float[size];
+            String[] sortedNombres = new String[size];
+            long[] sortedVersiones = new long[size];
+            long[] sortedChangeSeqs = new long[size];
+            long[] sortedLastModified = new long[size];
+            for (int out = 0; out < size; out++) {
+                int row = Arrays.binarySearch(ids, 0, size, (int) keys[out]);
+                sortedIds[out] = ids[row];
+                sortedPrecios[out] = precios[row];
+                sortedNombres[out] = nombres[row];
+                sortedVersiones[out] = versiones[row];
+                sortedChangeSeqs[out] = changeSeqs[row];
+                sortedLastModified[out] = lastModified[row];
+            }
+            return new Columns(sortedIds, sortedPrecios, sortedNombres, sortedVersiones, sortedChangeSeqs,
+                    sortedLastModified);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package dev.renzo.crud.service;
+
+import dev.renzo.crud.entity.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// se publica dentro de la transaccion; los listeners usan @TransactionalEventListener para actuar despues del commit
+@Getter
+@AllArgsConstructor
+public class ProductChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Producto producto;
+}
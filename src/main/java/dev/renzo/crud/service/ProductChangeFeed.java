@@ -0,0 +1,292 @@
+package dev.renzo.crud.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// cambios de productos confirmados, enviados por Server-Sent Events (GET /products/stream).
+// Una conexion inactiva no ocupa hilos (request asincrono) y las escrituras son no bloqueantes
+// (WriteListener): un grupo chico de hilos escribe mientras el socket acepta datos y, si un cliente deja de
+// leer, su cola espera a onWritePossible sin retener ningun hilo. Si la cola de un suscriptor se llena o su
+// socket no acepta datos durante write-timeout-ms, se lo desconecta: el cliente vuelve a conectarse y
+// recupera lo perdido con GET /products/changes?since=<id del ultimo evento>.
+@Component
+public class ProductChangeFeed {
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeFeed.class);
+    private static final byte[] HEARTBEAT = ":heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${producto.feed.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${producto.feed.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${producto.feed.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${producto.feed.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${producto.feed.write-timeout-ms:30000}")
+    private long writeTimeoutMs;
+
+    @Value("${producto.feed.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final class Subscriber implements WriteListener, AsyncListener {
+        final AsyncContext asyncContext;
+        final ServletOutputStream out;
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        // isReady() devolvio false: el contenedor llamara a onWritePossible cuando el socket acepte datos
+        volatile boolean awaitingWrite = true;
+        volatile long blockedSince;
+
+        Subscriber(AsyncContext asyncContext, ServletOutputStream out) {
+            this.asyncContext = asyncContext;
+            this.out = out;
+        }
+
+        @Override
+        public void onWritePossible() {
+            awaitingWrite = false;
+            blockedSince = 0;
+            schedule(this);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close(this);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            closed.set(true);
+            remove(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close(this);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close(this);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private ExecutorService senders;
+    private ScheduledExecutorService heartbeats;
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        Gauge.builder("producto.feed.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        dropped = Counter.builder("producto.feed.dropped").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers)
+            close(subscriber);
+    }
+
+    // false si se alcanzo producto.feed.max-subscribers; si no, la respuesta queda abierta y la escribe el feed
+    public boolean subscribe(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return false;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // los headers se envian en este hilo, antes de pasar a escrituras no bloqueantes
+        response.flushBuffer();
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeoutMs);
+        Subscriber subscriber = new Subscriber(asyncContext, response.getOutputStream());
+        asyncContext.addListener(subscriber);
+        subscribers.add(subscriber);
+        // el contenedor llama a onWritePossible en cuanto se puede escribir
+        subscriber.out.setWriteListener(subscriber);
+        return true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (subscribers.isEmpty())
+            return;
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event.getProducto());
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize product change for the feed", e);
+            return;
+        }
+
+        // el evento se codifica una sola vez y se comparte entre todos los suscriptores; el id es el
+        // changeSeq del cambio, que sirve como token de GET /products/changes
+        byte[] data = ("id:" + event.getProducto().getChangeSeq() + "\nevent:"
+                + event.getType().name().toLowerCase(Locale.ROOT) + "\ndata:" + json + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+        for (Subscriber subscriber : subscribers)
+            enqueue(subscriber, data);
+    }
+
+    int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long blockedSince = subscriber.blockedSince;
+            if (blockedSince != 0 && now - blockedSince > TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs)) {
+                // el cliente no lee: no retiene hilos, pero si su cola y la conexion
+                dropped.increment();
+                close(subscriber);
+            } else if (subscriber.queue.isEmpty()) {
+                // un suscriptor con eventos pendientes no necesita heartbeat
+                enqueue(subscriber, HEARTBEAT);
+            }
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, byte[] data) {
+        if (!subscriber.queue.offer(data)) {
+            dropped.increment();
+            close(subscriber);
+            return;
+        }
+        if (!subscriber.awaitingWrite)
+            schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.closed.get() && subscriber.draining.compareAndSet(false, true))
+            senders.execute(() -> drain(subscriber));
+    }
+
+    // un solo hilo por suscriptor a la vez, asi los eventos salen en el orden de la cola. Nunca bloquea:
+    // antes de cada write/flush se consulta isReady() y, si es false, se espera a onWritePossible
+    private void drain(Subscriber subscriber) {
+        try {
+            byte[] data;
+            while (!subscriber.closed.get() && !subscriber.queue.isEmpty()) {
+                if (!ready(subscriber))
+                    return;
+                while ((data = subscriber.queue.poll()) != null) {
+                    subscriber.out.write(data);
+                    if (!ready(subscriber))
+                        return;
+                }
+                subscriber.out.flush();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // el cliente cerro la conexion o la respuesta ya habia terminado
+            close(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+            // onWritePossible pudo llegar mientras este hilo todavia drenaba
+            if (!subscriber.awaitingWrite && !subscriber.queue.isEmpty())
+                schedule(subscriber);
+        }
+    }
+
+    // se marca la espera antes de consultar: si onWritePossible llega enseguida, la desmarca. Marcarla
+    // despues de isReady() dejaba un blockedSince viejo cuando onWritePossible ganaba la carrera, y el
+    // heartbeat desconectaba a un cliente que si leia
+    private boolean ready(Subscriber subscriber) {
+        subscriber.awaitingWrite = true;
+        subscriber.blockedSince = System.nanoTime();
+        if (!subscriber.out.isReady())
+            return false;
+        subscriber.awaitingWrite = false;
+        subscriber.blockedSince = 0;
+        return true;
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            remove(subscriber);
+            subscriber.queue.clear();
+            try {
+                subscriber.asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // el request asincrono ya habia terminado
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber))
+            subscriberCount.decrementAndGet();
+    }
+}
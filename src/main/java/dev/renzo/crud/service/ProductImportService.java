@@ -0,0 +1,207 @@
+package dev.renzo.crud.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.renzo.crud.dto.ProductoDTO;
+import dev.renzo.crud.dto.ResultadoImportacionDTO;
+import dev.renzo.crud.repository.Constraints;
+
+@Service
+public class ProductImportService {
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${producto.import.chunk-size:500}")
+    private int chunkSize;
+
+    // lee un arreglo JSON de productos elemento por elemento
+    public List<ResultadoImportacionDTO> importJson(InputStream input) throws IOException {
+        try (MappingIterator<ProductoDTO> rows = objectMapper.readerFor(ProductoDTO.class).readValues(input)) {
+            return importRows(new JsonRows(rows));
+        }
+    }
+
+    // lee lineas "nombre,precio"; la primera linea puede ser el encabezado
+    public List<ResultadoImportacionDTO> importCsv(InputStream input) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            return importRows(new CsvRows(reader));
+        }
+    }
+
+    // cada bloque se confirma en su propia transaccion: la importacion no es atomica. Si falla la lectura
+    // o un bloque, la respuesta igual informa fila por fila lo que ya quedo guardado y lo que no
+    private List<ResultadoImportacionDTO> importRows(Iterator<ProductoDTO> rows) {
+        List<ResultadoImportacionDTO> results = new ArrayList<>();
+        List<ProductoDTO> chunk = new ArrayList<>(chunkSize);
+        int firstRow = 1;
+
+        try {
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == chunkSize) {
+                    results.addAll(importChunk(chunk, firstRow));
+                    firstRow += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            // el resto de la entrada no se puede leer: se importa lo leido y se marca la fila que fallo
+            results.addAll(importChunk(chunk, firstRow));
+            results.add(new ResultadoImportacionDTO(firstRow + chunk.size(), null, null,
+                    HttpStatus.BAD_REQUEST.value(), "Error: Invalid import data"));
+            return results;
+        }
+        results.addAll(importChunk(chunk, firstRow));
+
+        return results;
+    }
+
+    // una fila que la base rechaza revierte el bloque completo. Si fue el indice de nombres (un alta concurrente)
+    // se reintenta una vez: la consulta de nombres existentes ya la detecta. Cualquier otro rechazo, o un
+    // reintento fallido, se resuelve importando fila por fila para que solo la fila culpable quede afuera
+    private List<ResultadoImportacionDTO> importChunk(List<ProductoDTO> chunk, int firstRow) {
+        if (chunk.isEmpty())
+            return Collections.emptyList();
+
+        try {
+            return productService.importChunk(chunk, firstRow);
+        } catch (DataIntegrityViolationException e) {
+            if (Constraints.violates(e, Constraints.PRODUCTO_NOMBRE)) {
+                try {
+                    return productService.importChunk(chunk, firstRow);
+                } catch (DataIntegrityViolationException retryFailure) {
+                    // se aisla abajo
+                }
+            }
+            return importRowByRow(chunk, firstRow);
+        }
+    }
+
+    private List<ResultadoImportacionDTO> importRowByRow(List<ProductoDTO> chunk, int firstRow) {
+        List<ResultadoImportacionDTO> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ProductoDTO row = chunk.get(i);
+            try {
+                results.addAll(productService.importChunk(Collections.singletonList(row), firstRow + i));
+            } catch (DataIntegrityViolationException e) {
+                results.add(Constraints.violates(e, Constraints.PRODUCTO_NOMBRE)
+                        ? new ResultadoImportacionDTO(firstRow + i, row.getNombre(), null,
+                                HttpStatus.CONFLICT.value(), "Error: Product name already exists")
+                        : new ResultadoImportacionDTO(firstRow + i, row.getNombre(), null,
+                                HttpStatus.BAD_REQUEST.value(), "Error: Invalid product data"));
+            }
+        }
+        return results;
+    }
+
+    // hasNextValue/nextValue dejan pasar los errores de parseo como IOException
+    private static class JsonRows implements Iterator<ProductoDTO> {
+        private final MappingIterator<ProductoDTO> rows;
+
+        JsonRows(MappingIterator<ProductoDTO> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return rows.hasNextValue();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public ProductoDTO next() {
+            try {
+                return rows.nextValue();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class CsvRows implements Iterator<ProductoDTO> {
+        private final BufferedReader reader;
+        private String next;
+        private boolean first = true;
+
+        CsvRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    String line = reader.readLine();
+                    if (line == null)
+                        return false;
+
+                    line = line.trim();
+                    boolean header = first && line.equalsIgnoreCase("nombre,precio");
+                    first = false;
+                    if (!header && !line.isEmpty())
+                        next = line;
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public ProductoDTO next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            String line = next;
+            next = null;
+            return parse(line);
+        }
+
+        private static ProductoDTO parse(String line) {
+            int separator = line.lastIndexOf(',');
+            if (separator < 0)
+                return new ProductoDTO(unquote(line), null);
+
+            String nombre = unquote(line.substring(0, separator).trim());
+            Float precio;
+            try {
+                precio = Float.valueOf(line.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                precio = null;
+            }
+            return new ProductoDTO(nombre, precio);
+        }
+
+        private static String unquote(String value) {
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+                return value.substring(1, value.length() - 1).replace("\"\"", "\"");
+            return value;
+        }
+    }
+}
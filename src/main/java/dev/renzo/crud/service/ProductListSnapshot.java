@@ -0,0 +1,132 @@
+package dev.renzo.crud.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.renzo.crud.entity.Producto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// respuesta de GET /products ya serializada (y comprimida con gzip); se regenera en segundo plano
+// despues de cada cambio, y una rafaga de escrituras produce una sola regeneracion
+@Component
+public class ProductListSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(ProductListSnapshot.class);
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${producto.list.limit:1000}")
+    private int listLimit;
+
+    @Value("${producto.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String eTag;
+        // validador propio del cuerpo gzip: un ETag fuerte identifica bytes exactos, no solo el contenido
+        private final String gzipETag;
+    }
+
+    private volatile Snapshot snapshot;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private ExecutorService executor;
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuildTimer = Timer.builder("producto.snapshot.rebuild").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // null si esta deshabilitado, todavia no se construyo o la ultima regeneracion fallo
+    public Snapshot get() {
+        return enabled ? snapshot : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (enabled && rebuildScheduled.compareAndSet(false, true))
+            executor.execute(this::rebuild);
+    }
+
+    private void rebuild() {
+        // se libera antes de consultar: un cambio confirmado durante la regeneracion programa otra
+        rebuildScheduled.set(false);
+        try {
+            snapshot = rebuildTimer.recordCallable(this::build);
+        } catch (Exception e) {
+            snapshot = null;
+            logger.warn("Could not rebuild the product list snapshot", e);
+        }
+    }
+
+    private Snapshot build() throws JsonProcessingException {
+        // se regenera despues de cada commit: leido de la replica podria quedar sin el cambio que lo disparo
+        List<Producto> products = productService.listFromPrimary(listLimit);
+        byte[] json = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, Producto.class)).writeValueAsBytes(products);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        String digest = DigestUtils.md5DigestAsHex(json);
+        return new Snapshot(json, compressed.toByteArray(), "\"" + digest + "\"", "\"" + digest + "-gzip\"");
+    }
+}
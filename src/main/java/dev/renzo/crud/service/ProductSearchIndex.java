@@ -0,0 +1,255 @@
+package dev.renzo.crud.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import dev.renzo.crud.entity.Producto;
+
+// indice en memoria de nombres de producto: prefijos con un mapa ordenado y subcadenas con trigramas.
+// Las listas de trigramas son int[] ordenados (copy-on-write) para no guardar un Integer por aparicion.
+// Como en ProductCatalog, los cambios se acumulan y se aplican en una sola pasada en la siguiente busqueda:
+// cada lista de trigramas se copia una vez por lote y no una vez por producto.
+@Component
+public class ProductSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+    private static final int[] EMPTY = new int[0];
+
+    @Autowired
+    ProductService productService;
+
+    private static final class Entry {
+        final Producto producto;
+        final String nombre;
+
+        Entry(Producto producto) {
+            this.producto = producto;
+            this.nombre = producto.getNombre().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final class Index {
+        final Map<Integer, Entry> byId = new ConcurrentHashMap<>();
+        // clave: nombre en minusculas + '\0' + id, para tolerar nombres que solo difieren en mayusculas
+        final ConcurrentSkipListMap<String, Integer> byNombre = new ConcurrentSkipListMap<>();
+        final Map<String, int[]> trigrams = new ConcurrentHashMap<>();
+    }
+
+    // null hasta que termina la carga inicial
+    private volatile Index index;
+    // cambios pendientes por id (null = eliminado), en orden de llegada
+    private final Map<Integer, Producto> pending = new LinkedHashMap<>();
+    private volatile boolean dirty;
+
+    // se arma sin bloquear a las escrituras; lo que se confirme mientras tanto queda pendiente y se aplica
+    // despues (reaplicar un cambio que el recorrido ya vio no altera el resultado)
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        Index built = new Index();
+        Map<String, IntList> postings = new HashMap<>();
+
+        // el catalogo llega ordenado por id, asi cada lista de trigramas queda ordenada al agregar al final
+        productService.forEach(producto -> {
+            Entry entry = new Entry(new Producto(producto));
+            built.byId.put(producto.getId(), entry);
+            built.byNombre.put(key(entry), producto.getId());
+            for (String trigram : trigramsOf(entry.nombre))
+                postings.computeIfAbsent(trigram, t -> new IntList()).add(producto.getId());
+        });
+
+        for (Map.Entry<String, IntList> posting : postings.entrySet())
+            built.trigrams.put(posting.getKey(), posting.getValue().toArray());
+
+        index = built;
+        dirty = true;
+        logger.info("Product search index built with {} products in {} ms", built.byId.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        Producto producto = event.getProducto();
+        synchronized (pending) {
+            // se reinserta para que el ultimo cambio de cada id quede al final
+            pending.remove(producto.getId());
+            pending.put(producto.getId(),
+                    event.getType() == ProductChangeEvent.Type.DELETED ? null : new Producto(producto));
+            dirty = true;
+        }
+    }
+
+    public List<Producto> searchByPrefix(String query, int limit) {
+        Index current = current();
+        String prefix = query.toLowerCase(Locale.ROOT);
+        List<Producto> results = new ArrayList<>(Math.min(limit, 64));
+        if (current == null)
+            return results;
+
+        for (Map.Entry<String, Integer> candidate : current.byNombre.tailMap(prefix).entrySet()) {
+            if (results.size() >= limit || !candidate.getKey().startsWith(prefix))
+                break;
+            Entry entry = current.byId.get(candidate.getValue());
+            if (entry != null)
+                results.add(new Producto(entry.producto));
+        }
+        return results;
+    }
+
+    public List<Producto> searchByInfix(String query, int limit) {
+        Index current = current();
+        String infix = query.toLowerCase(Locale.ROOT);
+        List<Producto> results = new ArrayList<>(Math.min(limit, 64));
+        if (current == null)
+            return results;
+
+        if (infix.length() < 3) {
+            // no hay trigramas para consultas cortas: se recorre el catalogo en memoria
+            for (Entry entry : current.byId.values()) {
+                if (results.size() >= limit)
+                    break;
+                if (entry.nombre.contains(infix))
+                    results.add(new Producto(entry.producto));
+            }
+            return results;
+        }
+
+        int[] candidates = null;
+        for (String trigram : trigramsOf(infix)) {
+            int[] posting = current.trigrams.getOrDefault(trigram, EMPTY);
+            if (candidates == null || posting.length < candidates.length)
+                candidates = posting;
+        }
+
+        for (int id : candidates) {
+            if (results.size() >= limit)
+                break;
+            Entry entry = current.byId.get(id);
+            if (entry != null && entry.nombre.contains(infix))
+                results.add(new Producto(entry.producto));
+        }
+        return results;
+    }
+
+    private Index current() {
+        Index current = index;
+        if (current != null && dirty)
+            applyPending(current);
+        return current;
+    }
+
+    // las mezclas se serializan; una rafaga de escrituras se aplica en una sola pasada
+    private synchronized void applyPending(Index current) {
+        Map<Integer, Producto> changes;
+        synchronized (pending) {
+            if (!dirty)
+                return;
+            changes = new LinkedHashMap<>(pending);
+            pending.clear();
+            dirty = false;
+        }
+
+        // ids a quitar y a agregar por trigrama; cada lista afectada se reescribe una sola vez
+        Map<String, IntList> removed = new HashMap<>();
+        Map<String, IntList> added = new HashMap<>();
+        for (Map.Entry<Integer, Producto> change : changes.entrySet()) {
+            int id = change.getKey();
+            Entry old = current.byId.remove(id);
+            if (old != null) {
+                current.byNombre.remove(key(old));
+                for (String trigram : trigramsOf(old.nombre))
+                    removed.computeIfAbsent(trigram, t -> new IntList()).add(id);
+            }
+            if (change.getValue() != null) {
+                Entry entry = new Entry(change.getValue());
+                current.byId.put(id, entry);
+                current.byNombre.put(key(entry), id);
+                for (String trigram : trigramsOf(entry.nombre))
+                    added.computeIfAbsent(trigram, t -> new IntList()).add(id);
+            }
+        }
+
+        Set<String> affected = new HashSet<>(removed.keySet());
+        affected.addAll(added.keySet());
+        for (String trigram : affected) {
+            int[] posting = merge(current.trigrams.getOrDefault(trigram, EMPTY), sorted(removed.get(trigram)),
+                    sorted(added.get(trigram)));
+            if (posting.length == 0)
+                current.trigrams.remove(trigram);
+            else
+                current.trigrams.put(trigram, posting);
+        }
+    }
+
+    private static String key(Entry entry) {
+        return entry.nombre + '\0' + entry.producto.getId();
+    }
+
+    private static Set<String> trigramsOf(String nombre) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= nombre.length(); i++)
+            result.add(nombre.substring(i, i + 3));
+        return result;
+    }
+
+    private static int[] sorted(IntList ids) {
+        if (ids == null)
+            return EMPTY;
+        int[] result = ids.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    // (posting - removed) union added, todo ordenado; un id que se quita y se vuelve a agregar se conserva
+    private static int[] merge(int[] posting, int[] removed, int[] added) {
+        IntList result = new IntList();
+        int p = 0;
+        int a = 0;
+        while (p < posting.length || a < added.length) {
+            int next;
+            if (a == added.length || (p < posting.length && posting[p] < added[a])) {
+                next = posting[p++];
+                if (Arrays.binarySearch(removed, next) >= 0)
+                    continue;
+            } else {
+                next = added[a++];
+                if (p < posting.length && posting[p] == next)
+                    p++;
+            }
+            if (result.size == 0 || result.values[result.size - 1] != next)
+                result.add(next);
+        }
+        return result.toArray();
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -1,14 +1,42 @@
 package dev.renzo.crud.service;
 
+import dev.renzo.crud.dto.CambiosProductoDTO;
+import dev.renzo.crud.dto.ProductoDTO;
+import dev.renzo.crud.dto.ResultadoImportacionDTO;
 import dev.renzo.crud.entity.Producto;
+import dev.renzo.crud.entity.ProductoEliminado;
+import dev.renzo.crud.entity.SecuenciaCambio;
+import dev.renzo.crud.repository.ProductoEliminadoRepository;
 import dev.renzo.crud.repository.ProductoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
 
+// las consultas son readOnly: con una replica configurada (ReadReplicaConfig) se resuelven en ella
 @Service
 @Transactional
 
@@ -17,31 +45,230 @@ public class ProductService {
     @Autowired
     ProductoRepository productoRepository;
 
-    public List<Producto> list(){
-        return productoRepository.findAll();
+    @Autowired
+    ProductoEliminadoRepository productoEliminadoRepository;
+
+    @Autowired
+    ProductCache productCache;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Value("${producto.changes.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    @Transactional(readOnly = true)
+    @Timed(value = "product.service", histogram = true)
+    public List<Producto> list(int limit){
+        return listAfter(0, limit);
     }
 
+    // igual que list pero sin readOnly, asi que siempre lee del primario: para regenerar datos justo despues de
+    // un commit, cuando la replica todavia puede no tener el cambio
+    @Timed(value = "product.service", histogram = true)
+    public List<Producto> listFromPrimary(int limit){
+        return listAfter(0, limit);
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = "product.service", histogram = true)
+    public List<Producto> listAfter(int cursor, int limit){
+        return productoRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, limit));
+    }
+
+    // recorre todo el catalogo sin acumularlo: cada entidad se desasocia despues de procesarla
+    @Transactional(readOnly = true)
+    @Timed(value = "product.service", histogram = true)
+    public void forEach(Consumer<Producto> consumer){
+        try (Stream<Producto> products = productoRepository.streamAllOrderById()) {
+            products.forEach(producto -> {
+                consumer.accept(producto);
+                entityManager.detach(producto);
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = "product.service", histogram = true)
     public Optional<Producto> getOne(int id){
-        return productoRepository.findById(id);
+        return productCache.getById(id);
     }
 
+    @Transactional(readOnly = true)
+    @Timed(value = "product.service", histogram = true)
     public Optional<Producto> getByNombre(String nombre){
-        return productoRepository.findByNombre(nombre);
+        return productCache.getByNombre(nombre);
+    }
+
+    @Timed(value = "product.service", histogram = true)
+    public Producto save(Producto producto){
+        ProductChangeEvent.Type type = producto.getId() == 0
+                ? ProductChangeEvent.Type.CREATED
+                : ProductChangeEvent.Type.UPDATED;
+        producto.setChangeSeq(reserveChangeSeq(1));
+        producto.setLastModified(timestamp());
+        // flush para que la version incrementada quede en el evento y en el ETag de la respuesta
+        Producto saved = productoRepository.saveAndFlush(producto);
+        eventPublisher.publishEvent(new ProductChangeEvent(type, new Producto(saved)));
+        return saved;
     }
 
-    public void save(Producto producto){
-        productoRepository.save(producto);
+    // valida un bloque de filas, detecta nombres repetidos con una sola consulta y lo inserta en batch
+    @Timed(value = "product.service", histogram = true)
+    public List<ResultadoImportacionDTO> importChunk(List<ProductoDTO> rows, int firstRow){
+        Set<String> nombres = new HashSet<>();
+        for (ProductoDTO row : rows) {
+            if (StringUtils.isNotBlank(row.getNombre()))
+                nombres.add(row.getNombre());
+        }
+
+        Set<String> taken = new HashSet<>();
+        if (!nombres.isEmpty()) {
+            for (String nombre : productoRepository.findNombresIn(nombres))
+                taken.add(nombre.toLowerCase(Locale.ROOT));
+        }
+
+        List<ResultadoImportacionDTO> results = new ArrayList<>(rows.size());
+        List<Producto> products = new ArrayList<>(rows.size());
+        List<ResultadoImportacionDTO> createdResults = new ArrayList<>(rows.size());
+
+        for (int i = 0; i < rows.size(); i++) {
+            ProductoDTO row = rows.get(i);
+            int fila = firstRow + i;
+
+            if (StringUtils.isBlank(row.getNombre())) {
+                results.add(new ResultadoImportacionDTO(fila, row.getNombre(), null,
+                        HttpStatus.BAD_REQUEST.value(), "Error: Product name is mandatory"));
+            } else if (row.getNombre().length() > Producto.NOMBRE_MAX_LENGTH) {
+                results.add(new ResultadoImportacionDTO(fila, row.getNombre(), null,
+                        HttpStatus.BAD_REQUEST.value(), "Error: Product name is too long"));
+            } else if (row.getPrecio() == null || row.getPrecio() < 0) {
+                results.add(new ResultadoImportacionDTO(fila, row.getNombre(), null,
+                        HttpStatus.BAD_REQUEST.value(), "Error: Product price is mandatory"));
+            } else if (!taken.add(row.getNombre().toLowerCase(Locale.ROOT))) {
+                results.add(new ResultadoImportacionDTO(fila, row.getNombre(), null,
+                        HttpStatus.CONFLICT.value(), "Error: Product name already exists"));
+            } else {
+                ResultadoImportacionDTO result = new ResultadoImportacionDTO(fila, row.getNombre(), null,
+                        HttpStatus.CREATED.value(), "Product created successfully!");
+                results.add(result);
+                createdResults.add(result);
+                products.add(new Producto(row.getNombre(), row.getPrecio()));
+            }
+        }
+
+        if (!products.isEmpty()) {
+            long changeSeq = reserveChangeSeq(products.size());
+            Instant now = timestamp();
+            for (Producto producto : products) {
+                producto.setChangeSeq(changeSeq++);
+                producto.setLastModified(now);
+            }
+        }
+        productoRepository.saveAll(products);
+        productoRepository.flush();
+        for (int i = 0; i < products.size(); i++) {
+            Producto producto = products.get(i);
+            createdResults.get(i).setId(producto.getId());
+            eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeEvent.Type.CREATED, new Producto(producto)));
+        }
+        entityManager.clear();
+
+        return results;
     }
 
+    @Timed(value = "product.service", histogram = true)
     public void delete(int id){
-        productoRepository.deleteById(id);
+        Producto producto = productoRepository.findById(id)
+                .orElseThrow(() -> new EmptyResultDataAccessException(
+                        String.format("No %s entity with id %s exists!", Producto.class, id), 1));
+        long changeSeq = reserveChangeSeq(1);
+        productoRepository.delete(producto);
+        entityManager.persist(new ProductoEliminado(id, changeSeq, timestamp()));
+
+        Producto deleted = new Producto(producto);
+        deleted.setChangeSeq(changeSeq);
+        eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeEvent.Type.DELETED, deleted));
+    }
+
+    // altas y modificaciones (productos) y bajas (marcas de eliminacion) posteriores a since, mezcladas en
+    // orden de secuencia; el costo depende de la cantidad de cambios y no del tamaño del catalogo
+    @Transactional(readOnly = true)
+    @Timed(value = "product.service", histogram = true)
+    public CambiosProductoDTO changesSince(long since, int limit){
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Producto> changed = productoRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(since, page);
+        List<ProductoEliminado> deleted = productoEliminadoRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(since, page);
+
+        List<Producto> productos = new ArrayList<>();
+        List<Integer> eliminados = new ArrayList<>();
+        long last = since;
+        int p = 0;
+        int d = 0;
+        while (productos.size() + eliminados.size() < limit && (p < changed.size() || d < deleted.size())) {
+            if (d == deleted.size() || (p < changed.size() && changed.get(p).getChangeSeq() < deleted.get(d).getChangeSeq())) {
+                Producto producto = changed.get(p++);
+                productos.add(producto);
+                last = producto.getChangeSeq();
+            } else {
+                ProductoEliminado eliminado = deleted.get(d++);
+                eliminados.add(eliminado.getId());
+                last = eliminado.getChangeSeq();
+            }
+        }
+
+        boolean hayMas = p < changed.size() || d < deleted.size();
+        return new CambiosProductoDTO(productos, eliminados, String.valueOf(last), hayMas);
+    }
+
+    // un token anterior a las marcas de eliminacion purgadas podria perder bajas: el cliente debe sincronizar todo
+    @Transactional(readOnly = true)
+    public boolean isChangeTokenExpired(long since){
+        SecuenciaCambio purgado = entityManager.find(SecuenciaCambio.class, SecuenciaCambio.PRODUCTO_PURGADO);
+        return purgado != null && since < purgado.getValor();
+    }
+
+    @Scheduled(cron = "${producto.changes.tombstone-purge-cron:0 30 3 * * *}")
+    public void purgeTombstones(){
+        Instant limite = Instant.now().minus(tombstoneRetentionDays, ChronoUnit.DAYS);
+        Long maxChangeSeq = productoEliminadoRepository.findMaxChangeSeqBefore(limite);
+        if (maxChangeSeq == null)
+            return;
+
+        SecuenciaCambio purgado = entityManager.find(SecuenciaCambio.class, SecuenciaCambio.PRODUCTO_PURGADO,
+                LockModeType.PESSIMISTIC_WRITE);
+        purgado.setValor(Math.max(purgado.getValor(), maxChangeSeq));
+        productoEliminadoRepository.deleteBefore(limite);
+    }
+
+    // reserva count valores consecutivos de la secuencia de cambios. El bloqueo de la fila dura hasta el commit,
+    // asi los valores se confirman en orden y un cliente nunca saltea un cambio que se confirme despues
+    private long reserveChangeSeq(int count){
+        SecuenciaCambio secuencia = entityManager.find(SecuenciaCambio.class, SecuenciaCambio.PRODUCTO,
+                LockModeType.PESSIMISTIC_WRITE);
+        long first = secuencia.getValor() + 1;
+        secuencia.setValor(secuencia.getValor() + count);
+        return first;
+    }
+
+    // con la precision de las columnas DATETIME(3): el producto en cache, en el catalogo y en los eventos tiene
+    // el mismo valor que se lee despues de MySQL
+    private static Instant timestamp(){
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
     }
 
+    @Transactional(readOnly = true)
+    @Timed(value = "product.service", histogram = true)
     public boolean existsById(int id){
-        return productoRepository.existsById(id);
+        return getOne(id).isPresent();
     }
 
+    @Transactional(readOnly = true)
+    @Timed(value = "product.service", histogram = true)
     public boolean existsByNombre(String nombre){
-        return productoRepository.existsByNombre(nombre);
+        return getByNombre(nombre).isPresent();
     }
 }
\ No newline at end of file
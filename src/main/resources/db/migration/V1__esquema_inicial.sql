@@ -0,0 +1,46 @@
+-- esquema que antes generaba hibernate con ddl-auto=update. Las bases existentes se registran con
+-- baseline-version 0 y tambien ejecutan esta version, por eso cada sentencia es idempotente.
+
+CREATE TABLE IF NOT EXISTS producto (
+    id INT NOT NULL,
+    nombre VARCHAR(255),
+    precio FLOAT NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_producto_nombre UNIQUE (nombre)
+);
+
+CREATE TABLE IF NOT EXISTS id_generator (
+    nombre_secuencia VARCHAR(255) NOT NULL,
+    siguiente_valor BIGINT,
+    PRIMARY KEY (nombre_secuencia)
+);
+
+-- el generador de ids de producto arranca despues del mayor id existente (filas creadas con IDENTITY)
+INSERT IGNORE INTO id_generator (nombre_secuencia, siguiente_valor)
+SELECT 'producto', COALESCE(MAX(id), 0) + 50 FROM producto;
+
+CREATE TABLE IF NOT EXISTS rol (
+    id INT NOT NULL AUTO_INCREMENT,
+    rol_nombre VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS usuario (
+    id INT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255) NOT NULL,
+    nombre_usuario VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuario_nombre_usuario UNIQUE (nombre_usuario),
+    CONSTRAINT uk_usuario_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS usuario_rol (
+    usuario_id INT NOT NULL,
+    rol_id INT NOT NULL,
+    PRIMARY KEY (usuario_id, rol_id),
+    CONSTRAINT fk_usuario_rol_usuario FOREIGN KEY (usuario_id) REFERENCES usuario (id),
+    CONSTRAINT fk_usuario_rol_rol FOREIGN KEY (rol_id) REFERENCES rol (id)
+);
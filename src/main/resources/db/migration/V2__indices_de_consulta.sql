@@ -0,0 +1,3 @@
+-- producto.nombre y usuario.nombre_usuario ya tienen indices unicos (V1); falta el de las consultas por
+-- precio que usa ProductCatalog cuando el catalogo en memoria no esta disponible
+CREATE INDEX idx_producto_precio ON producto (precio, id);
@@ -0,0 +1,10 @@
+-- tokens revocados con POST /auth/logout; TokenRevocationService los carga en memoria y purga los expirados
+CREATE TABLE token_revocado (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    jti VARCHAR(64) NOT NULL,
+    expiracion DATETIME NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_token_revocado_jti UNIQUE (jti)
+);
+
+CREATE INDEX idx_token_revocado_expiracion ON token_revocado (expiracion);
@@ -0,0 +1,27 @@
+-- sincronizacion incremental de productos (GET /products/changes?since=): cada alta, modificacion o baja
+-- toma el siguiente valor de secuencia_cambio; las bajas quedan registradas en producto_eliminado
+ALTER TABLE producto ADD COLUMN change_seq BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE producto ADD COLUMN last_modified DATETIME;
+
+-- las filas existentes quedan ordenadas por id, antes de cualquier cambio nuevo
+UPDATE producto SET change_seq = id, last_modified = CURRENT_TIMESTAMP;
+
+CREATE INDEX idx_producto_change_seq ON producto (change_seq);
+
+CREATE TABLE producto_eliminado (
+    id INT NOT NULL,
+    change_seq BIGINT NOT NULL,
+    eliminado DATETIME NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_producto_eliminado_change_seq ON producto_eliminado (change_seq);
+
+CREATE TABLE secuencia_cambio (
+    nombre VARCHAR(64) NOT NULL,
+    valor BIGINT NOT NULL,
+    PRIMARY KEY (nombre)
+);
+
+INSERT INTO secuencia_cambio (nombre, valor) SELECT 'producto', COALESCE(MAX(id), 0) FROM producto;
+INSERT INTO secuencia_cambio (nombre, valor) VALUES ('producto-purgado', 0);
@@ -0,0 +1,4 @@
+-- DATETIME sin fraccion redondea a segundos: lastModified leido de MySQL no coincidia con el que quedaba en
+-- cache, en el catalogo y en los eventos del feed. Se guardan milisegundos, la precision que usa la aplicacion
+ALTER TABLE producto MODIFY COLUMN last_modified DATETIME(3);
+ALTER TABLE producto_eliminado MODIFY COLUMN eliminado DATETIME(3) NOT NULL;
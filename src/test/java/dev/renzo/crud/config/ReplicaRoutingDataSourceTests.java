@@ -0,0 +1,136 @@
+package dev.renzo.crud.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReplicaRoutingDataSourceTests {
+
+	@Test
+	void readOnlyTransactionsUseTheReplica() {
+		DataSource dataSource = routing(database("primary"), database("replica"));
+
+		assertEquals("replica", origin(dataSource, true));
+		assertEquals("primary", origin(dataSource, false));
+	}
+
+	@Test
+	void readsFallBackToThePrimaryWhenTheReplicaIsDown() {
+		JdbcDataSource unreachable = new JdbcDataSource();
+		unreachable.setURL("jdbc:h2:tcp://localhost:1/unreachable");
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(database("primary-fallback"), unreachable, 60000);
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+		assertTrue(routing.isReplicaAvailable());
+		assertEquals("primary-fallback", origin(dataSource, true));
+		assertFalse(routing.isReplicaAvailable());
+		assertEquals("primary-fallback", origin(dataSource, true));
+	}
+
+	@Test
+	void writesAfterAReadOnlyReadInTheSameEntityManagerGoToThePrimary() {
+		DataSource primary = database("jpa-primary");
+		DataSource replica = database("jpa-replica");
+		EntityManagerFactory entityManagerFactory = entityManagerFactory(routing(primary, replica));
+		JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+
+		// como open-in-view: un solo EntityManager para todas las transacciones del request
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+		try {
+			TransactionTemplate read = new TransactionTemplate(transactionManager);
+			read.setReadOnly(true);
+			assertEquals("jpa-replica", read.execute(status -> entityManager.find(Registro.class, 1).nombre));
+
+			new TransactionTemplate(transactionManager).execute(status -> {
+				entityManager.persist(new Registro(2, "escrito"));
+				return null;
+			});
+		} finally {
+			TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+			entityManager.close();
+			entityManagerFactory.close();
+		}
+
+		assertEquals(1, registros(primary, 2));
+		assertEquals(0, registros(replica, 2));
+	}
+
+	private static EntityManagerFactory entityManagerFactory(DataSource dataSource) {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		new ReadReplicaConfig().replicaConnectionHandling().customize(properties);
+
+		LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+		factory.setDataSource(dataSource);
+		factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		factory.setMappingResources("dev/renzo/crud/config/registro-orm.xml");
+		factory.setJpaPropertyMap(properties);
+		factory.afterPropertiesSet();
+		return factory.getObject();
+	}
+
+	private static int registros(DataSource dataSource, int id) {
+		return new JdbcTemplate(dataSource).queryForObject("select count(*) from registro where id = ?",
+				Integer.class, id);
+	}
+
+	private static DataSource routing(DataSource primary, DataSource replica) {
+		return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, 60000));
+	}
+
+	private static String origin(DataSource dataSource, boolean readOnly) {
+		TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		transaction.setReadOnly(readOnly);
+		return transaction.execute(status ->
+				new JdbcTemplate(dataSource).queryForObject("select nombre from origen", String.class));
+	}
+
+	private static DataSource database(String name) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table if not exists origen (nombre varchar(32))");
+		jdbcTemplate.execute("delete from origen");
+		jdbcTemplate.update("insert into origen values (?)", name);
+		jdbcTemplate.execute("create table if not exists registro (id int primary key, nombre varchar(32))");
+		jdbcTemplate.execute("delete from registro");
+		jdbcTemplate.update("insert into registro values (1, ?)", name);
+		return dataSource;
+	}
+
+	// mapeada en registro-orm.xml y no con @Entity: la aplicacion escanea las entidades de dev.renzo.crud y, con
+	// las clases de test en el classpath (perfil loadtest, @SpringBootTest), validaria una tabla que no existe
+	static class Registro {
+		int id;
+		String nombre;
+
+		Registro() {
+		}
+
+		Registro(int id, String nombre) {
+			this.id = id;
+			this.nombre = nombre;
+		}
+	}
+
+}
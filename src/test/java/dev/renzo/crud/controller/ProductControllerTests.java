@@ -0,0 +1,118 @@
+package dev.renzo.crud.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.renzo.crud.dto.ProductoDTO;
+import dev.renzo.crud.entity.Producto;
+import dev.renzo.crud.security.entity.UsuarioPrincipal;
+import dev.renzo.crud.security.jwt.JwtProvider;
+import dev.renzo.crud.service.ProductService;
+
+// presupuesto de sentencias SQL por request, leido del header X-SQL-Statements de SqlStatisticsFilter
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:controller-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=none",
+		"jwt.stateless=true",
+		"sql.statistics.enabled=true",
+		"sql.statistics.headers=true" })
+@AutoConfigureMockMvc
+class ProductControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtProvider jwtProvider;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void getByIdIsServedFromTheCache() throws Exception {
+		Producto producto = productService.save(new Producto("presupuesto-get", 10));
+		String token = token();
+		mockMvc.perform(get("/products/{id}", producto.getId()).header(HttpHeaders.AUTHORIZATION, token))
+				.andExpect(status().isOk());
+
+		MvcResult result = mockMvc.perform(get("/products/{id}", producto.getId())
+				.header(HttpHeaders.AUTHORIZATION, token))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertEquals(0, statements(result));
+	}
+
+	@Test
+	void updateStaysWithinBudget() throws Exception {
+		Producto producto = productService.save(new Producto("presupuesto-put", 10));
+
+		MvcResult result = mockMvc.perform(put("/products/{id}", producto.getId())
+				.header(HttpHeaders.AUTHORIZATION, token())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new ProductoDTO("presupuesto-put", 20f))))
+				.andExpect(status().isCreated())
+				.andReturn();
+		// secuencia de cambios (SELECT ... FOR UPDATE + UPDATE), carga del producto y UPDATE
+		int statements = statements(result);
+		assertTrue(statements <= 4, statements + " statements");
+	}
+
+	@Test
+	void duplicateNameIsAConflict() throws Exception {
+		productService.save(new Producto("nombre-repetido", 10));
+
+		mockMvc.perform(post("/products")
+				.header(HttpHeaders.AUTHORIZATION, token())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new ProductoDTO("nombre-repetido", 20f))))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.mensaje").value("Error: Product name already exists"));
+	}
+
+	// un nombre mas largo que la columna tambien es una DataIntegrityViolationException, pero no un duplicado
+	@Test
+	void nameLongerThanTheColumnIsABadRequest() throws Exception {
+		mockMvc.perform(post("/products")
+				.header(HttpHeaders.AUTHORIZATION, token())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new ProductoDTO(StringUtils.repeat('x', 300), 20f))))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.mensaje").value("Error: Invalid product data"));
+	}
+
+	private int statements(MvcResult result) {
+		return Integer.parseInt(result.getResponse().getHeader("X-SQL-Statements"));
+	}
+
+	// token firmado por la aplicacion; con jwt.stateless=true los roles se leen del token
+	private String token() {
+		return "Bearer " + jwtProvider.generateToken(new UsernamePasswordAuthenticationToken(
+				UsuarioPrincipal.build("presupuesto", Collections.singletonList("ROLE_ADMIN")), null));
+	}
+}
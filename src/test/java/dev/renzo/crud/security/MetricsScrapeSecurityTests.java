@@ -0,0 +1,83 @@
+package dev.renzo.crud.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import dev.renzo.crud.security.entity.UsuarioPrincipal;
+import dev.renzo.crud.security.jwt.JwtProvider;
+
+// /actuator/prometheus se autentica con la credencial fija del scraper, el resto de /actuator con JWT de ADMIN
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:metrics-scrape;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=none",
+		"jwt.stateless=true",
+		"metrics.scrape.username=prometheus",
+		"metrics.scrape.password=scrape-secret" })
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsScrapeSecurityTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtProvider jwtProvider;
+
+	@Test
+	void prometheusAcceptsTheScrapeCredential() throws Exception {
+		mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, basic("scrape-secret")))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void prometheusRejectsMissingOrWrongCredentials() throws Exception {
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, basic("wrong")))
+				.andExpect(status().isUnauthorized());
+	}
+
+	// un JWT de usuario expira y rota con sus claves: no sirve para el scraper
+	@Test
+	void prometheusDoesNotAcceptUserTokens() throws Exception {
+		mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_ADMIN")))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void otherActuatorEndpointsRequireAnAdminToken() throws Exception {
+		mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_ADMIN")))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_USER")))
+				.andExpect(status().isForbidden());
+		// la credencial del scraper no autentica fuera de /actuator/prometheus (la cadena principal responde 403)
+		mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, basic("scrape-secret")))
+				.andExpect(status().isForbidden());
+	}
+
+	private static String basic(String password) {
+		return "Basic " + Base64.getEncoder()
+				.encodeToString(("prometheus:" + password).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String bearer(String role) {
+		return "Bearer " + jwtProvider.generateToken(new UsernamePasswordAuthenticationToken(
+				UsuarioPrincipal.build("metricas", Collections.singletonList(role)), null));
+	}
+}
@@ -0,0 +1,69 @@
+package dev.renzo.crud.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+	@Test
+	void neverReportsAnAddedValueAsAbsent() {
+		BloomFilter filter = new BloomFilter(10000, 0.01);
+		List<String> values = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			values.add(UUID.randomUUID().toString());
+			filter.add(values.get(i));
+		}
+
+		for (String value : values)
+			assertTrue(filter.mightContain(value), value);
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheConfiguredRate() {
+		BloomFilter filter = new BloomFilter(10000, 0.01);
+		for (int i = 0; i < 10000; i++)
+			filter.add(UUID.randomUUID().toString());
+
+		int falsePositives = 0;
+		int probes = 100000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain(UUID.randomUUID().toString()))
+				falsePositives++;
+		}
+		assertTrue(falsePositives < probes * 0.02, falsePositives + " false positives");
+	}
+
+	@Test
+	void concurrentAddsAreNotLost() throws Exception {
+		BloomFilter filter = new BloomFilter(40000, 0.01);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<String>>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					List<String> added = new ArrayList<>();
+					for (int i = 0; i < 10000; i++) {
+						String value = UUID.randomUUID().toString();
+						filter.add(value);
+						added.add(value);
+					}
+					return added;
+				}));
+			}
+			for (Future<List<String>> future : futures) {
+				for (String value : future.get())
+					assertTrue(filter.mightContain(value), value);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package dev.renzo.crud.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import dev.renzo.crud.security.entity.TokenRevocado;
+import dev.renzo.crud.security.repository.TokenRevocadoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TokenRevocationServiceTests {
+
+	// filas confirmadas en token_revocado (vistas por la consulta del sync)
+	private final List<TokenRevocado> committed = new ArrayList<>();
+	private TokenRevocationService service;
+
+	@BeforeEach
+	void setUp() {
+		TokenRevocadoRepository repository = Mockito.mock(TokenRevocadoRepository.class);
+		when(repository.findByIdGreaterThanAndExpiracionAfterOrderByIdAsc(anyLong(), any(Date.class)))
+				.thenAnswer(invocation -> {
+					long since = invocation.getArgument(0);
+					return committed.stream()
+							.filter(token -> token.getId() > since)
+							.sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+							.collect(Collectors.toList());
+				});
+
+		service = new TokenRevocationService();
+		ReflectionTestUtils.setField(service, "tokenRevocadoRepository", repository);
+		ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(service, "expectedTokens", 1000L);
+		ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+		ReflectionTestUtils.setField(service, "syncWindow", 100L);
+		service.init();
+	}
+
+	@Test
+	void syncPicksUpRowsCommittedBehindTheHighestSeenId() {
+		committed.add(token(11, "b"));
+		service.sync();
+		assertTrue(service.isRevoked("b"));
+
+		// id 10 se asigno antes que 11 pero se confirmo despues del sync anterior
+		committed.add(token(10, "a"));
+		service.sync();
+		assertTrue(service.isRevoked("a"));
+	}
+
+	@Test
+	void purgeKeepsConcurrentRevocationsInTheRebuiltFilter() throws Exception {
+		Thread revoker = new Thread(() -> {
+			for (int i = 0; i < 500; i++)
+				service.revoke("concurrent-" + i, new Date(System.currentTimeMillis() + 60000));
+		});
+		revoker.start();
+		for (int i = 0; i < 20; i++)
+			ReflectionTestUtils.invokeMethod(service, "reload");
+		revoker.join();
+
+		for (int i = 0; i < 500; i++)
+			assertTrue(service.isRevoked("concurrent-" + i), "concurrent-" + i);
+		assertFalse(service.isRevoked("never-revoked"));
+	}
+
+	private static TokenRevocado token(long id, String jti) {
+		return new TokenRevocado(id, jti, new Date(System.currentTimeMillis() + 60000));
+	}
+}
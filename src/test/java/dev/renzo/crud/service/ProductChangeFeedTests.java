@@ -0,0 +1,203 @@
+package dev.renzo.crud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import dev.renzo.crud.entity.Producto;
+import dev.renzo.crud.security.entity.UsuarioPrincipal;
+import dev.renzo.crud.security.jwt.JwtProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// GET /products/stream contra Tomcat real: los clientes que no leen se desconectan sin frenar a los demas
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:change-feed;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=none",
+		"jwt.stateless=true",
+		"producto.feed.buffer-size=64",
+		"producto.feed.sender-threads=2",
+		"producto.feed.heartbeat-seconds=1",
+		"producto.feed.write-timeout-ms=2000" })
+class ProductChangeFeedTests {
+
+	private static final long TIMEOUT_MS = 20000;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private ProductChangeFeed feed;
+
+	@Autowired
+	private JwtProvider jwtProvider;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final List<Socket> sockets = new ArrayList<>();
+	private final List<Reader> readers = new ArrayList<>();
+
+	@AfterEach
+	void disconnect() throws Exception {
+		for (Socket socket : sockets)
+			socket.close();
+		for (Reader reader : readers)
+			reader.connection.disconnect();
+		// los heartbeats fallan contra las conexiones cerradas y los suscriptores se liberan
+		await(() -> feed.getSubscriberCount() == 0);
+	}
+
+	@Test
+	void stalledSubscribersAreDroppedWhileReadersReceiveEveryEventInOrder() throws Exception {
+		for (int i = 0; i < 3; i++)
+			sockets.add(stalledClient());
+		for (int i = 0; i < 2; i++)
+			readers.add(reader());
+		await(() -> feed.getSubscriberCount() == 5);
+		double droppedBefore = dropped();
+
+		// nombres grandes para llenar los buffers de los sockets que no leen
+		String nombre = StringUtils.repeat('x', 8192);
+		int events = 2000;
+		for (int seq = 1; seq <= events; seq++) {
+			// sin adelantarse mas de medio buffer a los lectores: ellos nunca deben desbordarse
+			int published = seq;
+			await(() -> readers.stream().allMatch(reader -> reader.ids.size() >= published - 32));
+			feed.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.UPDATED,
+					new Producto(seq, nombre, seq, seq, seq, Instant.now())));
+		}
+
+		await(() -> readers.stream().allMatch(reader -> reader.ids.size() >= events));
+		for (Reader reader : readers) {
+			assertEquals(events, reader.ids.size());
+			for (int i = 0; i < events; i++)
+				assertEquals(i + 1, reader.ids.get(i).longValue());
+		}
+		await(() -> feed.getSubscriberCount() == 2);
+		assertTrue(dropped() - droppedBefore >= 3, "stalled subscribers were not dropped");
+	}
+
+	@Test
+	void stalledSubscriberIsDroppedAfterTheWriteTimeout() throws Exception {
+		sockets.add(stalledClient());
+		await(() -> feed.getSubscriberCount() == 1);
+		double droppedBefore = dropped();
+
+		// menos eventos que el buffer: la cola no se llena, el socket deja de aceptar datos
+		String nombre = StringUtils.repeat('x', 262144);
+		for (int seq = 1; seq <= 48; seq++)
+			feed.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.UPDATED,
+					new Producto(seq, nombre, seq, seq, seq, Instant.now())));
+
+		await(() -> feed.getSubscriberCount() == 0);
+		assertTrue(dropped() - droppedBefore >= 1, "stalled subscriber was not dropped");
+	}
+
+	@Test
+	void disconnectedSubscribersAreRemoved() throws Exception {
+		Reader reader = reader();
+		readers.add(reader);
+		await(() -> feed.getSubscriberCount() == 1);
+
+		reader.connection.disconnect();
+		for (int seq = 1; seq <= 10; seq++) {
+			feed.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.CREATED,
+					new Producto(seq, "desconectado-" + seq, seq, 0, seq, Instant.now())));
+			Thread.sleep(100);
+		}
+		await(() -> feed.getSubscriberCount() == 0);
+	}
+
+	private double dropped() {
+		return meterRegistry.get("producto.feed.dropped").counter().count();
+	}
+
+	private String token() {
+		return jwtProvider.generateToken(new UsernamePasswordAuthenticationToken(
+				UsuarioPrincipal.build("feed", Collections.singletonList("ROLE_USER")), null));
+	}
+
+	// envia el request y nunca lee la respuesta
+	private Socket stalledClient() throws IOException {
+		Socket socket = new Socket();
+		socket.setReceiveBufferSize(4096);
+		socket.connect(new InetSocketAddress("localhost", port));
+		OutputStream out = socket.getOutputStream();
+		out.write(("GET /products/stream HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n"
+				+ "Authorization: Bearer " + token() + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+		return socket;
+	}
+
+	private Reader reader() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/products/stream")
+				.openConnection();
+		connection.setRequestProperty("Accept", "text/event-stream");
+		connection.setRequestProperty("Authorization", "Bearer " + token());
+		assertEquals(200, connection.getResponseCode());
+
+		Reader reader = new Reader(connection);
+		Thread thread = new Thread(reader, "feed-reader");
+		thread.setDaemon(true);
+		thread.start();
+		return reader;
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the feed");
+			Thread.sleep(10);
+		}
+	}
+
+	// guarda el id de cada evento recibido, en orden
+	private static final class Reader implements Runnable {
+		final HttpURLConnection connection;
+		final List<Long> ids = new CopyOnWriteArrayList<>();
+
+		Reader(HttpURLConnection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public void run() {
+			try (BufferedReader in = new BufferedReader(
+					new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = in.readLine()) != null) {
+					if (line.startsWith("id:"))
+						ids.add(Long.parseLong(line.substring(3)));
+				}
+			} catch (IOException e) {
+				// conexion cerrada por el test
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package dev.renzo.crud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.renzo.crud.dto.ProductoDTO;
+import dev.renzo.crud.dto.ResultadoImportacionDTO;
+
+class ProductImportServiceTests {
+
+	// nombre -> rechazos pendientes de la base (cada importChunk que lo incluye consume uno)
+	private final Map<String, List<DataIntegrityViolationException>> rejections = new HashMap<>();
+	private final List<String> imported = new ArrayList<>();
+	private ProductImportService service;
+
+	@BeforeEach
+	void setUp() {
+		// como ProductService.importChunk: un rechazo revierte el bloque completo
+		ProductService productService = Mockito.mock(ProductService.class);
+		when(productService.importChunk(anyList(), anyInt())).thenAnswer(invocation -> {
+			List<ProductoDTO> rows = invocation.getArgument(0);
+			int firstRow = invocation.getArgument(1);
+			for (ProductoDTO row : rows) {
+				List<DataIntegrityViolationException> pending = rejections.get(row.getNombre());
+				if (pending != null && !pending.isEmpty())
+					throw pending.remove(0);
+			}
+			List<ResultadoImportacionDTO> results = new ArrayList<>();
+			for (int i = 0; i < rows.size(); i++) {
+				imported.add(rows.get(i).getNombre());
+				results.add(new ResultadoImportacionDTO(firstRow + i, rows.get(i).getNombre(), i,
+						HttpStatus.CREATED.value(), "Product created successfully!"));
+			}
+			return results;
+		});
+
+		service = new ProductImportService();
+		ReflectionTestUtils.setField(service, "productService", productService);
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "chunkSize", 500);
+	}
+
+	@Test
+	void concurrentNameConflictIsRetriedOnce() throws Exception {
+		reject("b", "Duplicate entry 'b' for key 'producto.uk_producto_nombre'");
+
+		List<ResultadoImportacionDTO> results = importCsv("a,1\nb,2\nc,3\n");
+
+		assertEquals(3, imported.size());
+		for (ResultadoImportacionDTO result : results)
+			assertEquals(HttpStatus.CREATED.value(), result.getEstado());
+	}
+
+	@Test
+	void rowRejectedForAnotherReasonDoesNotFailTheChunk() throws Exception {
+		// el reintento no cambia nada: la fila se rechaza siempre por el mismo motivo
+		reject("b", "Data truncation: Data too long for column 'nombre'");
+		reject("b", "Data truncation: Data too long for column 'nombre'");
+
+		List<ResultadoImportacionDTO> results = importCsv("a,1\nb,2\nc,3\n");
+
+		assertEquals(3, results.size());
+		assertEquals(HttpStatus.CREATED.value(), results.get(0).getEstado());
+		assertEquals(HttpStatus.BAD_REQUEST.value(), results.get(1).getEstado());
+		assertEquals(2, results.get(1).getFila());
+		assertEquals(HttpStatus.CREATED.value(), results.get(2).getEstado());
+		assertEquals(2, imported.size());
+	}
+
+	@Test
+	void nameCollidingOnEveryAttemptIsIsolated() throws Exception {
+		// p. ej. un nombre que solo difiere en acentos de uno existente bajo una collation _ci
+		for (int i = 0; i < 3; i++)
+			reject("café", "Duplicate entry 'café' for key 'producto.uk_producto_nombre'");
+
+		List<ResultadoImportacionDTO> results = importCsv("cafe,1\ncafé,2\nte,3\n");
+
+		assertEquals(HttpStatus.CREATED.value(), results.get(0).getEstado());
+		assertEquals(HttpStatus.CONFLICT.value(), results.get(1).getEstado());
+		assertEquals(HttpStatus.CREATED.value(), results.get(2).getEstado());
+		assertEquals(2, imported.size());
+	}
+
+	private void reject(String nombre, String message) {
+		rejections.computeIfAbsent(nombre, key -> new ArrayList<>()).add(new DataIntegrityViolationException(message));
+	}
+
+	private List<ResultadoImportacionDTO> importCsv(String csv) throws Exception {
+		return service.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,59 @@
+package dev.renzo.crud.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import dev.renzo.crud.entity.Producto;
+
+// con una replica que nunca recibe los cambios, el snapshot regenerado despues de un commit igual lo incluye
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:snapshot-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.replica.url=" + ProductListSnapshotTests.REPLICA_URL,
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=none" })
+class ProductListSnapshotTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:snapshot-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductListSnapshot productListSnapshot;
+
+	// la replica tiene el esquema pero no recibe los cambios, como una replica atrasada
+	@BeforeAll
+	static void laggingReplica() {
+		JdbcDataSource replica = new JdbcDataSource();
+		replica.setURL(REPLICA_URL);
+		replica.setUser("sa");
+		Flyway.configure().dataSource(replica).load().migrate();
+	}
+
+	@Test
+	void rebuildAfterAWriteReadsThePrimary() throws InterruptedException {
+		productService.save(new Producto("snapshot-primario", 10));
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!contains(productListSnapshot.get(), "snapshot-primario")) {
+			assertTrue(System.currentTimeMillis() < deadline, "the snapshot does not include the new product");
+			Thread.sleep(10);
+		}
+		// la lectura readOnly sigue yendo a la replica
+		assertTrue(productService.list(10).isEmpty());
+	}
+
+	private static boolean contains(ProductListSnapshot.Snapshot snapshot, String nombre) {
+		return snapshot != null && new String(snapshot.getJson(), StandardCharsets.UTF_8).contains(nombre);
+	}
+}
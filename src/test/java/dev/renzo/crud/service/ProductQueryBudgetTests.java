@@ -0,0 +1,56 @@
+package dev.renzo.crud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import dev.renzo.crud.config.SqlStatementCounter;
+import dev.renzo.crud.entity.Producto;
+
+// presupuesto de sentencias SQL por operacion, medido con SqlStatementCounter
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=none" })
+class ProductQueryBudgetTests {
+
+	@Autowired
+	private ProductService productService;
+
+	@Test
+	void cachedReadsDoNotQuery() {
+		Producto producto = productService.save(new Producto("presupuesto-lectura", 10));
+		productService.getOne(producto.getId());
+
+		SqlStatementCounter.start();
+		productService.getOne(producto.getId());
+		assertEquals(0, SqlStatementCounter.stop().getStatements());
+	}
+
+	@Test
+	void updateStaysWithinBudget() {
+		Producto producto = productService.save(new Producto("presupuesto-escritura", 10));
+		producto.setPrecio(20);
+
+		SqlStatementCounter.start();
+		productService.save(producto);
+		SqlStatementCounter.Statistics statistics = SqlStatementCounter.stop();
+		// secuencia de cambios (SELECT ... FOR UPDATE + UPDATE), carga del producto y UPDATE
+		assertTrue(statistics.getStatements() <= 4, statistics.getStatements() + " statements");
+	}
+
+	@Test
+	void changesSinceRunsOneQueryPerTable() {
+		productService.save(new Producto("presupuesto-cambios", 10));
+
+		SqlStatementCounter.start();
+		productService.changesSince(0, 100);
+		SqlStatementCounter.Statistics statistics = SqlStatementCounter.stop();
+		assertTrue(statistics.getStatements() <= 2, statistics.getStatements() + " statements");
+	}
+}
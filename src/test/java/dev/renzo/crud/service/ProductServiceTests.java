@@ -0,0 +1,55 @@
+package dev.renzo.crud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import dev.renzo.crud.dto.ProductoDTO;
+import dev.renzo.crud.dto.ResultadoImportacionDTO;
+import dev.renzo.crud.entity.Producto;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:product-service;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=none" })
+class ProductServiceTests {
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// el lastModified en memoria (cache, catalogo, eventos) es el mismo que queda en la base
+	@Test
+	void lastModifiedMatchesTheStoredValue() {
+		Producto producto = productService.save(new Producto("precision-fecha", 10));
+
+		Timestamp stored = jdbcTemplate.queryForObject("SELECT last_modified FROM producto WHERE id = ?",
+				Timestamp.class, producto.getId());
+		assertEquals(stored.toInstant(), producto.getLastModified());
+		assertEquals(producto.getLastModified(), productService.getOne(producto.getId()).get().getLastModified());
+	}
+
+	// un nombre mas largo que la columna se informa en su fila y no revierte el bloque
+	@Test
+	void importChunkRejectsNamesLongerThanTheColumn() {
+		List<ResultadoImportacionDTO> results = productService.importChunk(Arrays.asList(
+				new ProductoDTO("importacion-corto", 1f),
+				new ProductoDTO(StringUtils.repeat('x', Producto.NOMBRE_MAX_LENGTH + 1), 2f)), 1);
+
+		assertEquals(201, results.get(0).getEstado());
+		assertEquals(400, results.get(1).getEstado());
+		assertEquals("Error: Product name is too long", results.get(1).getMensaje());
+	}
+}